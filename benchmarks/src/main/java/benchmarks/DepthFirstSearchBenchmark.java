@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import firstgraph.GraphAdjList;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DepthFirstSearchBenchmark {
+
+	private static final int PICKS = 1024;
+
+	@Param({ "GRID", "RANDOM_GEOMETRIC", "POWER_LAW" })
+	private Shape shape;
+
+	@Param({ "1000", "100000" })
+	private int size;
+
+	private GraphAdjList graph;
+	private int[] starts = new int[PICKS];
+	private int[] goals = new int[PICKS];
+	private int next;
+
+	@Setup
+	public void setUp() {
+		Shape.Edges edges = shape.generate(size);
+		Random random = new Random(7);
+
+		graph = new GraphAdjList();
+
+		for (int node = 0; node < edges.nodeCount(); node++) {
+			graph.addVertex();
+		}
+
+		for (int edge = 0; edge < edges.count(); edge++) {
+			graph.addEdge(edges.origin(edge), edges.destination(edge));
+		}
+
+		for (int pick = 0; pick < PICKS; pick++) {
+			starts[pick] = random.nextInt(edges.nodeCount());
+			goals[pick] = random.nextInt(edges.nodeCount());
+		}
+	}
+
+	private int nextPick() {
+		next = (next + 1) & (PICKS - 1);
+		return next;
+	}
+
+	@Benchmark
+	public List<Integer> searchDeepForAPath() {
+		int pick = nextPick();
+		List<Integer> path = new ArrayList<>();
+
+		graph.searchDeep(starts[pick], goals[pick], path);
+
+		return path;
+	}
+
+	@Benchmark
+	public Map<Integer, Integer> searchDeepForParents() {
+		int pick = nextPick();
+
+		return graph.searchDeep(starts[pick], goals[pick]);
+	}
+
+	@Benchmark
+	public int[] depthFirstPath() {
+		int pick = nextPick();
+
+		return graph.depthFirstPath(starts[pick], goals[pick]);
+	}
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import firstgraph.Graph;
+import firstgraph.GraphAdjList;
+import firstgraph.GraphAdjMatrix;
+import firstgraph.GraphIntAdjList;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FirstGraphBenchmark {
+
+	@Param({ "LIST", "INT_LIST", "MATRIX" })
+	private String implementation;
+
+	@Param({ "GRID", "RANDOM_GEOMETRIC", "POWER_LAW" })
+	private Shape shape;
+
+	// The matrix needs size² bits each way, which keeps these sizes modest.
+	@Param({ "1000", "20000" })
+	private int size;
+
+	private Graph graph;
+	private int vertex;
+
+	@Setup
+	public void setUp() {
+		Shape.Edges edges = shape.generate(size);
+
+		graph = implementation.equals("LIST") ? new GraphAdjList()
+				: implementation.equals("INT_LIST") ? new GraphIntAdjList() : new GraphAdjMatrix(edges.nodeCount());
+
+		for (int node = 0; node < edges.nodeCount(); node++) {
+			graph.addVertex();
+		}
+
+		for (int edge = 0; edge < edges.count(); edge++) {
+			graph.addEdge(edges.origin(edge), edges.destination(edge));
+		}
+	}
+
+	private int nextVertex() {
+		vertex = (vertex + 7919) % graph.getNumVertices();
+		return vertex;
+	}
+
+	@Benchmark
+	public List<Integer> getInNeighbors() {
+		return graph.getInNeighbors(nextVertex());
+	}
+
+	@Benchmark
+	public List<Integer> getDistance2() {
+		return graph.getDistance2(nextVertex());
+	}
+
+	@Benchmark
+	public List<Integer> getDistinctDistance2() {
+		return graph.getDistinctDistance2(nextVertex());
+	}
+
+	@Benchmark
+	public List<Integer> degreeSequence() {
+		return graph.degreeSequence();
+	}
+
+	@Benchmark
+	public int[] sortedDegrees() {
+		return graph.sortedDegrees();
+	}
+}
@@ -0,0 +1,157 @@
+package benchmarks;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import improvedgraph.CompactGraph;
+import improvedgraph.Graph;
+import improvedgraph.GraphEdge;
+import improvedgraph.GraphNode;
+import improvedgraph.SearchWorkspace;
+import improvedgraph.util.Stack;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImprovedGraphBenchmark {
+
+	private static final int PICKS = 1024;
+
+	@Param({ "GRID", "RANDOM_GEOMETRIC", "POWER_LAW" })
+	private Shape shape;
+
+	@Param({ "10000", "250000" })
+	private int size;
+
+	private Graph graph;
+	private CompactGraph compactGraph;
+	private SearchWorkspace workspace;
+	private GraphNode[] nodes;
+	private int[] origins = new int[PICKS];
+	private int[] destinations = new int[PICKS];
+	private int[] absentOrigins = new int[PICKS];
+	private int[] absentDestinations = new int[PICKS];
+	private double[] queryCoordinates = new double[2 * PICKS];
+	private int next;
+
+	@Setup
+	public void setUp() {
+		Shape.Edges edges = shape.generate(size);
+		Random random = new Random(7);
+		Set<GraphNode> nodeSet = new HashSet<>();
+
+		nodes = new GraphNode[edges.nodeCount()];
+
+		for (int node = 0; node < nodes.length; node++) {
+			nodes[node] = new GraphNode(edges.xCoordinate(node), edges.yCoordinate(node));
+			nodeSet.add(nodes[node]);
+		}
+
+		graph = new Graph(nodeSet);
+
+		for (int edge = 0; edge < edges.count(); edge++) {
+			graph.createAnEdgeBetweenTheFollowingNodes(nodes[edges.origin(edge)], nodes[edges.destination(edge)]);
+		}
+
+		compactGraph = graph.freeze();
+		workspace = new SearchWorkspace(compactGraph.nodeCount());
+
+		for (int pick = 0; pick < PICKS; pick++) {
+			origins[pick] = random.nextInt(nodes.length);
+			destinations[pick] = random.nextInt(nodes.length);
+
+			do {
+				absentOrigins[pick] = random.nextInt(nodes.length);
+				absentDestinations[pick] = random.nextInt(nodes.length);
+			} while (absentOrigins[pick] == absentDestinations[pick] || edges.contains(absentOrigins[pick], absentDestinations[pick]));
+
+			queryCoordinates[2 * pick] = random.nextDouble();
+			queryCoordinates[2 * pick + 1] = random.nextDouble();
+		}
+	}
+
+	private int nextPick() {
+		next = (next + 1) & (PICKS - 1);
+		return next;
+	}
+
+	@Benchmark
+	public Stack<GraphEdge> navigate() {
+		int pick = nextPick();
+
+		return graph.navigate(nodes[origins[pick]], nodes[destinations[pick]]);
+	}
+
+	@Benchmark
+	public boolean findPathOnTheFrozenGraph() {
+		int pick = nextPick();
+
+		return compactGraph.findPath(compactGraph.idOf(nodes[origins[pick]]), compactGraph.idOf(nodes[destinations[pick]]), workspace);
+	}
+
+	@Benchmark
+	public boolean findCheapestPathOnTheFrozenGraph() {
+		int pick = nextPick();
+
+		return compactGraph.findCheapestPath(compactGraph.idOf(nodes[origins[pick]]), compactGraph.idOf(nodes[destinations[pick]]), 0.0, workspace);
+	}
+
+	// The edge has to go again for the next call to be able to create it, so both operations are measured together.
+	@Benchmark
+	public GraphEdge createAnEdgeAndRemoveIt() {
+		int pick = nextPick();
+		GraphNode origin = nodes[absentOrigins[pick]];
+		GraphNode destination = nodes[absentDestinations[pick]];
+
+		graph.createAnEdgeBetweenTheFollowingNodes(origin, destination);
+
+		return graph.removeTheEdgeBetweenTheFollowingNodes(origin, destination);
+	}
+
+	@Benchmark
+	public GraphNode nearestNode() {
+		int pick = nextPick();
+
+		return graph.nearestNode(queryCoordinates[2 * pick], queryCoordinates[2 * pick + 1]);
+	}
+
+	// What finding the nearest node costs without the spatial index.
+	@Benchmark
+	public GraphNode nearestNodeByScanning() {
+		int pick = nextPick();
+		double xCoordinate = queryCoordinates[2 * pick];
+		double yCoordinate = queryCoordinates[2 * pick + 1];
+		GraphNode nearest = null;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+
+		for (GraphNode node : nodes) {
+			double xDistance = node.xCoordinate() - xCoordinate;
+			double yDistance = node.yCoordinate() - yCoordinate;
+			double distance = xDistance * xDistance + yDistance * yDistance;
+
+			if (distance < nearestDistance) {
+				nearest = node;
+				nearestDistance = distance;
+			}
+		}
+
+		return nearest;
+	}
+}
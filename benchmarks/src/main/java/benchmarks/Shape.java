@@ -0,0 +1,205 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * The kinds of graphs the benchmarks run on, generated reproducibly from a
+ * fixed seed. Every shape places its nodes in the unit square and has no self
+ * loops or repeated edges, so the same edges can build any of the graphs.
+ */
+public enum Shape {
+
+	// Four-neighbour lattice with edges both ways, like a street grid.
+	GRID {
+		@Override
+		Edges generate(int size, Random random) {
+			int side = Math.max(2, (int) Math.sqrt(size));
+			Edges edges = new Edges(side * side);
+
+			for (int node = 0; node < side * side; node++) {
+				edges.place(node, (double) (node % side) / side, (double) (node / side) / side);
+
+				if (node % side > 0)
+					edges.addBothWays(node, node - 1);
+
+				if (node >= side)
+					edges.addBothWays(node, node - side);
+			}
+
+			return edges;
+		}
+	},
+
+	// Random points joined both ways to every point closer than the radius giving about eight neighbours each.
+	RANDOM_GEOMETRIC {
+		@Override
+		Edges generate(int size, Random random) {
+			Edges edges = new Edges(size);
+			double radius = Math.sqrt(8.0 / (Math.PI * size));
+			int cells = Math.max(1, (int) (1.0 / radius));
+			int[][] buckets = new int[cells * cells][];
+			int[] bucketSizes = new int[cells * cells];
+
+			for (int node = 0; node < size; node++) {
+				edges.place(node, random.nextDouble(), random.nextDouble());
+
+				int cell = cellOf(edges.xCoordinates[node], cells) * cells + cellOf(edges.yCoordinates[node], cells);
+
+				if (buckets[cell] == null)
+					buckets[cell] = new int[4];
+				else if (bucketSizes[cell] == buckets[cell].length)
+					buckets[cell] = Arrays.copyOf(buckets[cell], bucketSizes[cell] * 2);
+
+				buckets[cell][bucketSizes[cell]++] = node;
+			}
+
+			for (int node = 0; node < size; node++) {
+				int cellX = cellOf(edges.xCoordinates[node], cells);
+				int cellY = cellOf(edges.yCoordinates[node], cells);
+
+				for (int x = Math.max(0, cellX - 1); x <= Math.min(cells - 1, cellX + 1); x++) {
+					for (int y = Math.max(0, cellY - 1); y <= Math.min(cells - 1, cellY + 1); y++) {
+						for (int i = 0; i < bucketSizes[x * cells + y]; i++) {
+							int other = buckets[x * cells + y][i];
+							double xDistance = edges.xCoordinates[node] - edges.xCoordinates[other];
+							double yDistance = edges.yCoordinates[node] - edges.yCoordinates[other];
+
+							if (other > node && xDistance * xDistance + yDistance * yDistance < radius * radius)
+								edges.addBothWays(node, other);
+						}
+					}
+				}
+			}
+
+			return edges;
+		}
+
+		private int cellOf(double coordinate, int cells) {
+			return Math.min(cells - 1, (int) (coordinate * cells));
+		}
+	},
+
+	// One hub joined both ways to every other node, which sit on a circle around it.
+	STAR {
+		@Override
+		Edges generate(int size, Random random) {
+			Edges edges = new Edges(Math.max(2, size));
+
+			edges.place(0, 0.5, 0.5);
+
+			for (int leaf = 1; leaf < edges.nodeCount(); leaf++) {
+				double angle = 2.0 * Math.PI * leaf / (edges.nodeCount() - 1);
+
+				edges.place(leaf, 0.5 + 0.5 * Math.cos(angle), 0.5 + 0.5 * Math.sin(angle));
+				edges.addBothWays(0, leaf);
+			}
+
+			return edges;
+		}
+	},
+
+	// Preferential attachment: each new node links both ways to three earlier ones picked in proportion to their degree.
+	POWER_LAW {
+		@Override
+		Edges generate(int size, Random random) {
+			Edges edges = new Edges(size);
+			int[] endpoints = new int[6 * size];
+			int endpointCount = 0;
+
+			for (int node = 0; node < size; node++) {
+				edges.place(node, random.nextDouble(), random.nextDouble());
+
+				for (int link = 0; link < Math.min(3, node); link++) {
+					int other = endpointCount == 0 ? 0 : endpoints[random.nextInt(endpointCount)];
+
+					if (other != node && !edges.contains(node, other)) {
+						edges.addBothWays(node, other);
+						endpoints[endpointCount++] = node;
+						endpoints[endpointCount++] = other;
+					}
+				}
+			}
+
+			return edges;
+		}
+	};
+
+	public Edges generate(int size) {
+		return generate(size, new Random(42));
+	}
+
+	abstract Edges generate(int size, Random random);
+
+	public static final class Edges {
+
+		private final double[] xCoordinates;
+		private final double[] yCoordinates;
+		private final Set<Long> pairs = new HashSet<>();
+		private int[] origins = new int[1024];
+		private int[] destinations = new int[1024];
+		private int count;
+
+		Edges(int nodeCount) {
+			xCoordinates = new double[nodeCount];
+			yCoordinates = new double[nodeCount];
+		}
+
+		void place(int node, double xCoordinate, double yCoordinate) {
+			xCoordinates[node] = xCoordinate;
+			yCoordinates[node] = yCoordinate;
+		}
+
+		void addBothWays(int node, int other) {
+			add(node, other);
+			add(other, node);
+		}
+
+		boolean add(int origin, int destination) {
+
+			if (origin == destination || !pairs.add(((long) origin << 32) | destination))
+				return false;
+
+			if (count == origins.length) {
+				origins = Arrays.copyOf(origins, count * 2);
+				destinations = Arrays.copyOf(destinations, count * 2);
+			}
+
+			origins[count] = origin;
+			destinations[count] = destination;
+			count++;
+
+			return true;
+		}
+
+		public boolean contains(int origin, int destination) {
+			return pairs.contains(((long) origin << 32) | destination);
+		}
+
+		public int nodeCount() {
+			return xCoordinates.length;
+		}
+
+		public int count() {
+			return count;
+		}
+
+		public double xCoordinate(int node) {
+			return xCoordinates[node];
+		}
+
+		public double yCoordinate(int node) {
+			return yCoordinates[node];
+		}
+
+		public int origin(int edge) {
+			return origins[edge];
+		}
+
+		public int destination(int edge) {
+			return destinations[edge];
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import improvedgraph.Graph;
+import improvedgraph.GraphEdge;
+import improvedgraph.GraphNode;
+import improvedgraph.util.Stack;
+
+/**
+ * Navigates between the two ends of a graph whose frontier gets very wide, so
+ * that every node is scheduled before the destination is found. The time per
+ * operation should grow with the size and no faster: a search that scans its
+ * frontier for every edge it follows turns quadratic on these shapes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WideGraphBenchmark {
+
+	@Param({ "GRID", "STAR" })
+	private Shape shape;
+
+	@Param({ "10000", "100000", "1000000" })
+	private int size;
+
+	private Graph graph;
+	private GraphNode origin;
+	private GraphNode destination;
+
+	@Setup
+	public void setUp() {
+		Shape.Edges edges = shape.generate(size);
+		GraphNode[] nodes = new GraphNode[edges.nodeCount()];
+		Set<GraphNode> nodeSet = new HashSet<>();
+
+		for (int node = 0; node < nodes.length; node++) {
+			nodes[node] = new GraphNode(edges.xCoordinate(node), edges.yCoordinate(node));
+			nodeSet.add(nodes[node]);
+		}
+
+		// Hangs off the last node, so it is only found after the whole frontier around that node was scheduled,
+		// whatever order the edges are followed in.
+		destination = new GraphNode(2.0, 2.0);
+		nodeSet.add(destination);
+
+		graph = new Graph(nodeSet);
+
+		for (int edge = 0; edge < edges.count(); edge++) {
+			graph.createAnEdgeBetweenTheFollowingNodes(nodes[edges.origin(edge)], nodes[edges.destination(edge)]);
+		}
+
+		graph.createAnEdgeBetweenTheFollowingNodes(nodes[nodes.length - 1], destination);
+
+		// A corner of the grid, opposite to the last node, or the first leaf of the star.
+		origin = nodes[shape == Shape.STAR ? 1 : 0];
+	}
+
+	@Benchmark
+	public Stack<GraphEdge> navigate() {
+		return graph.navigate(origin, destination);
+	}
+}
@@ -1,12 +1,19 @@
 package firstgraph;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
 
 public abstract class Graph {
 
+	private static final int VERTEX_BATCH = 256;
+
 	private int numVertices;
 	private int numEdges;
+	private final ThreadLocal<VisitStamps> visitStamps = ThreadLocal.withInitial(VisitStamps::new);
 
 	public Graph() {
 		numVertices = 0;
@@ -44,20 +51,191 @@ public abstract class Graph {
 
 	public abstract List<Integer> getInNeighbors(int v);
 
+	// Implementations override this to walk their own storage instead of a copied list.
+	public void forEachNeighbor(int v, IntConsumer action) {
+		getNeighbors(v).forEach(action::accept);
+	}
+
+	public int outDegree(int v) {
+		return getNeighbors(v).size();
+	}
+
+	public int inDegree(int v) {
+		return getInNeighbors(v).size();
+	}
+
 	public List<Integer> degreeSequence() {
-		List<Integer> degreeSequence = new LinkedList<>();
+		int[] sortedDegrees = sortedDegrees();
+		List<Integer> degreeSequence = new ArrayList<>(sortedDegrees.length);
 
-		for (int i = 0; i < getNumVertices(); i++) {
-			degreeSequence.add(getNeighbors(i).size() + getInNeighbors(i).size());
+		for (int degree : sortedDegrees) {
+			degreeSequence.add(degree);
 		}
 
-		degreeSequence.sort((o1, o2) -> o2.compareTo(o1));
-
 		return degreeSequence;
 	}
 
+	public int degree(int v) {
+		return outDegree(v) + inDegree(v);
+	}
+
+	public int[] degrees() {
+		int[] degrees = new int[numVertices];
+
+		for (int v = 0; v < numVertices; v++) {
+			degrees[v] = degree(v);
+		}
+
+		return degrees;
+	}
+
+	// The graph must not be changed while the pool is working on it.
+	public int[] degrees(ForkJoinPool pool) {
+		int[] degrees = new int[numVertices];
+
+		pool.invoke(new ForEachVertexTask(v -> degrees[v] = degree(v), 0, numVertices));
+
+		return degrees;
+	}
+
+	// How many vertices there are of each degree, indexed by degree.
+	public int[] degreeHistogram() {
+		return histogramOf(degrees());
+	}
+
+	public int[] degreeHistogram(ForkJoinPool pool) {
+		return histogramOf(degrees(pool));
+	}
+
+	// The degrees of all vertices from the largest to the smallest, ordered by counting them rather than comparing them.
+	public int[] sortedDegrees() {
+		return sortedFrom(degreeHistogram(), numVertices);
+	}
+
+	public int[] sortedDegrees(ForkJoinPool pool) {
+		return sortedFrom(degreeHistogram(pool), numVertices);
+	}
+
+	private static int[] histogramOf(int[] degrees) {
+		int maxDegree = 0;
+
+		for (int degree : degrees) {
+			maxDegree = Math.max(maxDegree, degree);
+		}
+
+		int[] histogram = new int[degrees.length == 0 ? 0 : maxDegree + 1];
+
+		for (int degree : degrees) {
+			histogram[degree]++;
+		}
+
+		return histogram;
+	}
+
+	private static int[] sortedFrom(int[] histogram, int vertexCount) {
+		int[] sortedDegrees = new int[vertexCount];
+		int next = 0;
+
+		for (int degree = histogram.length - 1; degree >= 0; degree--) {
+			Arrays.fill(sortedDegrees, next, next + histogram[degree], degree);
+			next += histogram[degree];
+		}
+
+		return sortedDegrees;
+	}
+
 	public abstract List<Integer> getDistance2(int v);
 
+	// Like getDistance2, but every vertex two hops away is listed once, in the order it is first reached.
+	public List<Integer> getDistinctDistance2(int v) {
+
+		if (v < 0 || v >= numVertices)
+			throw new IndexOutOfBoundsException("Vertex " + v + " of a graph with " + numVertices + " vertices.");
+
+		VisitStamps stamps = visitStamps.get().begin(numVertices);
+		List<Integer> twoHopsNeighbors = new ArrayList<>();
+
+		forEachNeighbor(v, vNeighbor -> forEachNeighbor(vNeighbor, twoHopsNeighbor -> {
+			if (stamps.visit(twoHopsNeighbor))
+				twoHopsNeighbors.add(twoHopsNeighbor);
+		}));
+
+		return twoHopsNeighbors;
+	}
+
+	public List<List<Integer>> getAllDistinctDistance2() {
+		return getAllDistinctDistance2(ForkJoinPool.commonPool());
+	}
+
+	// The graph must not be changed while the pool is working on it.
+	public List<List<Integer>> getAllDistinctDistance2(ForkJoinPool pool) {
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		List<Integer>[] twoHopsNeighborhoods = new List[numVertices];
+
+		pool.invoke(new ForEachVertexTask(v -> twoHopsNeighborhoods[v] = getDistinctDistance2(v), 0, numVertices));
+
+		return Arrays.asList(twoHopsNeighborhoods);
+	}
+
+	private static final class ForEachVertexTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final IntConsumer action;
+		private final int from;
+		private final int to;
+
+		ForEachVertexTask(IntConsumer action, int from, int to) {
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from <= VERTEX_BATCH) {
+				for (int v = from; v < to; v++) {
+					action.accept(v);
+				}
+
+			} else {
+				int middle = (from + to) >>> 1;
+
+				invokeAll(new ForEachVertexTask(action, from, middle), new ForEachVertexTask(action, middle, to));
+			}
+		}
+	}
+
+	// Marks vertices as visited for the current query only; a new query just moves on to the next epoch.
+	private static final class VisitStamps {
+
+		private int[] stamps = new int[0];
+		private int epoch;
+
+		VisitStamps begin(int vertexCount) {
+
+			if (stamps.length < vertexCount)
+				stamps = new int[Math.max(vertexCount, stamps.length * 2)];
+
+			if (++epoch == Integer.MAX_VALUE) {
+				Arrays.fill(stamps, 0);
+				epoch = 1;
+			}
+
+			return this;
+		}
+
+		boolean visit(int v) {
+
+			if (stamps[v] == epoch)
+				return false;
+
+			stamps[v] = epoch;
+			return true;
+		}
+	}
+
 	@Override
 	public String toString() {
 		String s = "\nGraph with " + numVertices + " vertices and " + numEdges + " edges.\n";
@@ -1,18 +1,19 @@
 package firstgraph;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.IntConsumer;
 
 public class GraphAdjList extends Graph {
 
 	private Map<Integer, ArrayList<Integer>> adjListsMap;
+	private Map<Integer, ArrayList<Integer>> inAdjListsMap;
 
 	public GraphAdjList() {
 		adjListsMap = new HashMap<>();
+		inAdjListsMap = new HashMap<>();
 	}
 
 	@Override
@@ -20,11 +21,13 @@ public class GraphAdjList extends Graph {
 		int v = getNumVertices();
 		ArrayList<Integer> neighbors = new ArrayList<>();
 		adjListsMap.put(v, neighbors);
+		inAdjListsMap.put(v, new ArrayList<>());
 	}
 
 	@Override
 	public void implementAddEdge(int v, int w) {
 		(adjListsMap.get(v)).add(w);
+		(inAdjListsMap.get(w)).add(v);
 	}
 
 	@Override
@@ -34,20 +37,28 @@ public class GraphAdjList extends Graph {
 
 	@Override
 	public List<Integer> getInNeighbors(int v) {
-		List<Integer> inNeighbors = new ArrayList<>();
-
-		for (int u : adjListsMap.keySet()) {
-			// iterate through all edges in u's adjacency list and
-			// add u to the inNeighbor list of v whenever an edge
-			// with startpoint u has endpoint v.
-			for (int w : adjListsMap.get(u)) {
-				if (v == w) {
-					inNeighbors.add(u);
-				}
-			}
+		// Every edge u -> v is recorded under v as it is added, so there is no need
+		// to scan the whole graph looking for edges that end at v.
+		return new ArrayList<>(inAdjListsMap.get(v));
+	}
+
+	@Override
+	public void forEachNeighbor(int v, IntConsumer action) {
+		ArrayList<Integer> neighbors = adjListsMap.get(v);
+
+		for (int i = 0; i < neighbors.size(); i++) {
+			action.accept(neighbors.get(i));
 		}
+	}
 
-		return inNeighbors;
+	@Override
+	public int outDegree(int v) {
+		return adjListsMap.get(v).size();
+	}
+
+	@Override
+	public int inDegree(int v) {
+		return inAdjListsMap.get(v).size();
 	}
 
 	@Override
@@ -63,70 +74,119 @@ public class GraphAdjList extends Graph {
 
 	@Override
 	public String adjacencyString() {
-		String s = "Adjacency list";
-		s += " (size " + getNumVertices() + "+" + getNumEdges() + " integers):";
+		StringBuilder s = new StringBuilder("Adjacency list");
+		s.append(" (size ").append(getNumVertices()).append("+").append(getNumEdges()).append(" integers):");
 
 		for (int v : adjListsMap.keySet()) {
-			s += "\n\t" + v + ": ";
+			s.append("\n\t").append(v).append(": ");
 			for (int w : adjListsMap.get(v)) {
-				s += w + ", ";
+				s.append(w).append(", ");
 			}
 		}
 
-		return s;
+		return s.toString();
 	}
 
+	// Appends the vertices of the path found from start to goal, both included, and tells whether there was one.
 	public boolean searchDeep(int start, int goal, List<Integer> path) {
-		System.out.println("start: " + start + " goal: " + goal);
-		System.out.println(Thread.currentThread().getStackTrace());
-		
-		path.add(start);
-		
-		if (start == goal) {
-			return true;
+		int[] vertices = depthFirstPath(start, goal);
+
+		for (int vertex : vertices) {
+			path.add(vertex);
 		}
-		
-		for (Integer outNeighbor : getNeighbors(start)) {
-			
-			if (!path.contains(outNeighbor)) {
-				boolean reachedDeadEnd = !searchDeep(outNeighbor, goal, path);
-				
-//				If a search returns false it means a dead end was reached. Otherwise, the goal has been reached
-				if (reachedDeadEnd) {
-					path.add(start);
-					
-				} else {
-					return true;
-				}
-			}
+
+		return vertices.length > 0;
+	}
+
+	// Maps every vertex the search discovered, up to reaching the goal, to the vertex it was discovered from.
+	public Map<Integer, Integer> searchDeep(int start, int goal) {
+		int[] parent = new int[getNumVertices()];
+		HashMap<Integer, Integer> parentMap = new HashMap<>();
+
+		searchDeep(start, goal, parent);
+
+		for (int v = 0; v < parent.length; v++) {
+			if (parent[v] != -1 && v != start)
+				parentMap.put(v, parent[v]);
 		}
-		
-		return false;
+
+		return parentMap;
+	}
+
+	// The vertices from start to goal, both included, or an empty array when the goal cannot be reached.
+	public int[] depthFirstPath(int start, int goal) {
+		int[] parent = new int[getNumVertices()];
+
+		if (!searchDeep(start, goal, parent))
+			return new int[0];
+
+		int length = 1;
+
+		for (int v = goal; v != start; v = parent[v]) {
+			length++;
+		}
+
+		int[] path = new int[length];
+
+		for (int v = goal, i = length - 1; i >= 0; v = parent[v], i--) {
+			path[i] = v;
+		}
+
+		return path;
 	}
 
-	public Map<Integer,Integer> searchDeep(int start, int goal) {
-		Deque<Integer> whereToNext = new ArrayDeque<>();
-		HashSet<Integer> visited = new HashSet<>();
-		HashMap<Integer, Integer> parent = new HashMap<>();
-		
-		whereToNext.push(start);
-		visited.add(start);
-		
-		while (!whereToNext.isEmpty()) {
-			Integer currentNode = whereToNext.pop();
-			if (currentNode == goal) {
-				return parent;
+	// Walks the graph depth first with an explicit stack, so long paths do not overflow the thread stack.
+	// Neighbors are tried in the order their edges were added, just like a recursive search would.
+	private boolean searchDeep(int start, int goal, int[] parent) {
+		int vertexCount = getNumVertices();
+
+		if (start < 0 || start >= vertexCount || goal < 0 || goal >= vertexCount)
+			throw new IndexOutOfBoundsException("Searching from vertex " + start + " to vertex " + goal + " in a graph with " + vertexCount + " vertices.");
+
+		long[] visited = new long[(vertexCount + 63) >>> 6];
+		int[] stack = new int[16];
+		int[] nextNeighbor = new int[16];
+		int depth = 1;
+
+		Arrays.fill(parent, -1);
+		stack[0] = start;
+		visited[start >>> 6] |= 1L << start;
+		parent[start] = start;
+
+		while (depth > 0) {
+			int currentNode = stack[depth - 1];
+
+			if (currentNode == goal)
+				return true;
+
+			ArrayList<Integer> outNeighbors = adjListsMap.get(currentNode);
+			int i = nextNeighbor[depth - 1];
+
+			while (i < outNeighbors.size() && (visited[outNeighbors.get(i) >>> 6] & (1L << outNeighbors.get(i))) != 0) {
+				i++;
 			}
-			
-			for (Integer outNeighbor : getNeighbors(currentNode)) {
-				if (!visited.contains(outNeighbor)) {
-					visited.add(outNeighbor);
-					parent.put(currentNode, outNeighbor);
-					whereToNext.push(outNeighbor);
-				}
+
+			if (i == outNeighbors.size()) {
+				depth--;
+				continue;
 			}
+
+			int outNeighbor = outNeighbors.get(i);
+
+			nextNeighbor[depth - 1] = i + 1;
+			visited[outNeighbor >>> 6] |= 1L << outNeighbor;
+			parent[outNeighbor] = currentNode;
+
+			if (depth == stack.length) {
+				stack = Arrays.copyOf(stack, depth * 2);
+				nextNeighbor = Arrays.copyOf(nextNeighbor, depth * 2);
+			}
+
+			stack[depth] = outNeighbor;
+			nextNeighbor[depth] = 0;
+			depth++;
 		}
-		
-		return parent;
+
+		return false;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,188 @@
+package firstgraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Adjacency matrix packed into {@code long} bitsets, one row per vertex, along
+ * with its transpose so that in-neighbours are read row-wise too. Meant for
+ * dense graphs, where a two-hop neighbourhood is the OR of a few rows and a
+ * degree is a bit count. Being a matrix, it holds at most one edge between any
+ * two vertices: repeated edges are counted by {@link #getNumEdges()} but show up
+ * only once among the neighbours.
+ */
+public class GraphAdjMatrix extends Graph {
+
+	private long[][] outRows;
+	private long[][] inRows;
+	private int words;
+
+	public GraphAdjMatrix() {
+		this(64);
+	}
+
+	public GraphAdjMatrix(int expectedVertices) {
+
+		if (expectedVertices < 0)
+			throw new IllegalArgumentException("You are trying to create a graph for a negative number of vertices. Please, check it out.");
+
+		words = wordsFor(Math.max(64, expectedVertices));
+		outRows = new long[words << 6][];
+		inRows = new long[words << 6][];
+	}
+
+	private static int wordsFor(int vertices) {
+		return (vertices + 63) >>> 6;
+	}
+
+	@Override
+	public void implementAddVertex() {
+		int v = getNumVertices();
+
+		if (v == outRows.length)
+			grow(v * 2);
+
+		outRows[v] = new long[words];
+		inRows[v] = new long[words];
+	}
+
+	private void grow(int vertices) {
+		words = wordsFor(vertices);
+		outRows = Arrays.copyOf(outRows, words << 6);
+		inRows = Arrays.copyOf(inRows, words << 6);
+
+		for (int v = 0; v < getNumVertices(); v++) {
+			outRows[v] = Arrays.copyOf(outRows[v], words);
+			inRows[v] = Arrays.copyOf(inRows[v], words);
+		}
+	}
+
+	@Override
+	public void implementAddEdge(int v, int w) {
+		outRows[v][w >>> 6] |= 1L << w;
+		inRows[w][v >>> 6] |= 1L << v;
+	}
+
+	public boolean hasEdge(int v, int w) {
+		checkVertex(v);
+		checkVertex(w);
+		return (outRows[v][w >>> 6] & (1L << w)) != 0;
+	}
+
+	@Override
+	public void forEachNeighbor(int v, IntConsumer action) {
+		checkVertex(v);
+
+		long[] row = outRows[v];
+
+		for (int word = 0; word < words; word++) {
+			for (long bits = row[word]; bits != 0; bits &= bits - 1) {
+				action.accept((word << 6) + Long.numberOfTrailingZeros(bits));
+			}
+		}
+	}
+
+	@Override
+	public int outDegree(int v) {
+		checkVertex(v);
+		return count(outRows[v]);
+	}
+
+	@Override
+	public int inDegree(int v) {
+		checkVertex(v);
+		return count(inRows[v]);
+	}
+
+	@Override
+	public List<Integer> getNeighbors(int v) {
+		checkVertex(v);
+		return vertices(outRows[v]);
+	}
+
+	@Override
+	public List<Integer> getInNeighbors(int v) {
+		checkVertex(v);
+		return vertices(inRows[v]);
+	}
+
+	// Every vertex reachable in exactly two hops, each listed once and in ascending order.
+	@Override
+	public List<Integer> getDistance2(int v) {
+		return vertices(distance2Row(v));
+	}
+
+	@Override
+	public List<Integer> getDistinctDistance2(int v) {
+		return getDistance2(v);
+	}
+
+	public int countDistance2(int v) {
+		return count(distance2Row(v));
+	}
+
+	private long[] distance2Row(int v) {
+		checkVertex(v);
+
+		long[] row = outRows[v];
+		long[] twoHops = new long[words];
+
+		for (int word = 0; word < words; word++) {
+			for (long bits = row[word]; bits != 0; bits &= bits - 1) {
+				long[] neighborRow = outRows[(word << 6) + Long.numberOfTrailingZeros(bits)];
+
+				for (int i = 0; i < words; i++) {
+					twoHops[i] |= neighborRow[i];
+				}
+			}
+		}
+
+		return twoHops;
+	}
+
+	private static int count(long[] row) {
+		int count = 0;
+
+		for (long bits : row) {
+			count += Long.bitCount(bits);
+		}
+
+		return count;
+	}
+
+	private static List<Integer> vertices(long[] row) {
+		List<Integer> vertices = new ArrayList<>(count(row));
+
+		for (int word = 0; word < row.length; word++) {
+			for (long bits = row[word]; bits != 0; bits &= bits - 1) {
+				vertices.add((word << 6) + Long.numberOfTrailingZeros(bits));
+			}
+		}
+
+		return vertices;
+	}
+
+	@Override
+	public String adjacencyString() {
+		StringBuilder s = new StringBuilder("Adjacency matrix");
+		s.append(" (size ").append(getNumVertices()).append("x").append(getNumVertices()).append(" = ")
+				.append((long) getNumVertices() * getNumVertices()).append(" bits):");
+
+		for (int v = 0; v < getNumVertices(); v++) {
+			s.append("\n\t").append(v).append(": ");
+			for (int w = 0; w < getNumVertices(); w++) {
+				s.append((outRows[v][w >>> 6] & (1L << w)) != 0 ? 1 : 0).append(", ");
+			}
+		}
+
+		return s.toString();
+	}
+
+	private void checkVertex(int v) {
+
+		if (v < 0 || v >= getNumVertices())
+			throw new IndexOutOfBoundsException("Vertex " + v + " of a graph with " + getNumVertices() + " vertices.");
+	}
+}
@@ -0,0 +1,187 @@
+package firstgraph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntConsumer;
+
+/**
+ * Adjacency lists kept in growable {@code int[]} arrays, one per vertex and
+ * direction, instead of lists of boxed integers. Neighbours can be read one by
+ * one through {@link #neighbor(int, int)} without allocating anything, and
+ * {@link #getNeighbors(int)} returns a read-only view rather than a copy.
+ */
+public class GraphIntAdjList extends Graph {
+
+	private static final int[] NO_NEIGHBORS = new int[0];
+
+	private int[][] outNeighbors;
+	private int[] outDegrees;
+	private int[][] inNeighbors;
+	private int[] inDegrees;
+
+	public GraphIntAdjList() {
+		this(16);
+	}
+
+	public GraphIntAdjList(int expectedVertices) {
+
+		if (expectedVertices < 0)
+			throw new IllegalArgumentException("You are trying to create a graph for a negative number of vertices. Please, check it out.");
+
+		outNeighbors = new int[expectedVertices][];
+		outDegrees = new int[expectedVertices];
+		inNeighbors = new int[expectedVertices][];
+		inDegrees = new int[expectedVertices];
+	}
+
+	@Override
+	public void implementAddVertex() {
+		int v = getNumVertices();
+
+		if (v == outNeighbors.length) {
+			int capacity = Math.max(16, v * 2);
+
+			outNeighbors = Arrays.copyOf(outNeighbors, capacity);
+			outDegrees = Arrays.copyOf(outDegrees, capacity);
+			inNeighbors = Arrays.copyOf(inNeighbors, capacity);
+			inDegrees = Arrays.copyOf(inDegrees, capacity);
+		}
+
+		outNeighbors[v] = NO_NEIGHBORS;
+		inNeighbors[v] = NO_NEIGHBORS;
+	}
+
+	@Override
+	public void implementAddEdge(int v, int w) {
+		outNeighbors[v] = append(outNeighbors[v], outDegrees[v]++, w);
+		inNeighbors[w] = append(inNeighbors[w], inDegrees[w]++, v);
+	}
+
+	private static int[] append(int[] neighbors, int size, int neighbor) {
+
+		if (size == neighbors.length)
+			neighbors = Arrays.copyOf(neighbors, Math.max(4, size * 2));
+
+		neighbors[size] = neighbor;
+
+		return neighbors;
+	}
+
+	@Override
+	public void forEachNeighbor(int v, IntConsumer action) {
+		checkVertex(v);
+
+		int[] neighbors = outNeighbors[v];
+
+		for (int i = 0, degree = outDegrees[v]; i < degree; i++) {
+			action.accept(neighbors[i]);
+		}
+	}
+
+	@Override
+	public int outDegree(int v) {
+		checkVertex(v);
+		return outDegrees[v];
+	}
+
+	@Override
+	public int inDegree(int v) {
+		checkVertex(v);
+		return inDegrees[v];
+	}
+
+	public int neighbor(int v, int index) {
+
+		if (index < 0 || index >= outDegree(v))
+			throw new IndexOutOfBoundsException("Neighbor " + index + " of vertex " + v + ", which has " + outDegrees[v] + " neighbors.");
+
+		return outNeighbors[v][index];
+	}
+
+	public int inNeighbor(int v, int index) {
+
+		if (index < 0 || index >= inDegree(v))
+			throw new IndexOutOfBoundsException("In-neighbor " + index + " of vertex " + v + ", which has " + inDegrees[v] + " in-neighbors.");
+
+		return inNeighbors[v][index];
+	}
+
+	@Override
+	public List<Integer> getNeighbors(int v) {
+		checkVertex(v);
+		return new NeighborView(outNeighbors[v], outDegrees[v]);
+	}
+
+	@Override
+	public List<Integer> getInNeighbors(int v) {
+		checkVertex(v);
+		return new NeighborView(inNeighbors[v], inDegrees[v]);
+	}
+
+	@Override
+	public List<Integer> getDistance2(int v) {
+		checkVertex(v);
+
+		List<Integer> twoHopsNeighbors = new ArrayList<>();
+
+		for (int i = 0; i < outDegrees[v]; i++) {
+			int vNeighbor = outNeighbors[v][i];
+
+			for (int j = 0; j < outDegrees[vNeighbor]; j++) {
+				twoHopsNeighbors.add(outNeighbors[vNeighbor][j]);
+			}
+		}
+
+		return twoHopsNeighbors;
+	}
+
+	@Override
+	public String adjacencyString() {
+		StringBuilder s = new StringBuilder("Adjacency list");
+		s.append(" (size ").append(getNumVertices()).append("+").append(getNumEdges()).append(" integers):");
+
+		for (int v = 0; v < getNumVertices(); v++) {
+			s.append("\n\t").append(v).append(": ");
+			for (int i = 0; i < outDegrees[v]; i++) {
+				s.append(outNeighbors[v][i]).append(", ");
+			}
+		}
+
+		return s.toString();
+	}
+
+	private void checkVertex(int v) {
+
+		if (v < 0 || v >= getNumVertices())
+			throw new IndexOutOfBoundsException("Vertex " + v + " of a graph with " + getNumVertices() + " vertices.");
+	}
+
+	// Fixes the size at creation, so edges added to the vertex later on are not seen through the view.
+	private static final class NeighborView extends AbstractList<Integer> implements RandomAccess {
+
+		private final int[] neighbors;
+		private final int size;
+
+		NeighborView(int[] neighbors, int size) {
+			this.neighbors = neighbors;
+			this.size = size;
+		}
+
+		@Override
+		public Integer get(int index) {
+
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Neighbor " + index + " of " + size + ".");
+
+			return neighbors[index];
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
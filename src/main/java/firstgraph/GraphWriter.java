@@ -0,0 +1,122 @@
+package firstgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Streams a graph out one vertex at a time, so the output can be as large as
+ * the graph without ever being held in memory. The given writer or stream is
+ * flushed but left open.
+ */
+public final class GraphWriter {
+
+	public static final int BINARY_MAGIC = 0x46475250;
+	public static final int BINARY_VERSION = 1;
+
+	private GraphWriter() {
+	}
+
+	// One "v w" line per edge.
+	public static void writeEdgeList(Graph graph, Writer writer) throws IOException {
+		Writer out = new BufferedWriter(writer);
+		Neighbors neighbors = new Neighbors();
+
+		for (int v = 0; v < graph.getNumVertices(); v++) {
+			neighbors.of(graph, v);
+
+			for (int i = 0; i < neighbors.size; i++) {
+				out.write(Integer.toString(v));
+				out.write(' ');
+				out.write(Integer.toString(neighbors.vertices[i]));
+				out.write('\n');
+			}
+		}
+
+		out.flush();
+	}
+
+	public static void writeDot(Graph graph, Writer writer) throws IOException {
+		Writer out = new BufferedWriter(writer);
+		Neighbors neighbors = new Neighbors();
+
+		out.write("digraph G {\n");
+
+		for (int v = 0; v < graph.getNumVertices(); v++) {
+			neighbors.of(graph, v);
+
+			out.write("\t" + v + ";\n");
+
+			for (int i = 0; i < neighbors.size; i++) {
+				out.write("\t" + v + " -> " + neighbors.vertices[i] + ";\n");
+			}
+		}
+
+		out.write("}\n");
+		out.flush();
+	}
+
+	/*
+	 * Big-endian ints: the magic number, the format version, the vertex count V
+	 * and the edge count E, followed by the V + 1 offsets and the E targets of the
+	 * adjacency lists laid out as compressed sparse rows.
+	 */
+	public static void writeBinary(Graph graph, OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+		Neighbors neighbors = new Neighbors();
+		int vertexCount = graph.getNumVertices();
+		int edgeCount = 0;
+
+		for (int v = 0; v < vertexCount; v++) {
+			edgeCount += graph.outDegree(v);
+		}
+
+		out.writeInt(BINARY_MAGIC);
+		out.writeInt(BINARY_VERSION);
+		out.writeInt(vertexCount);
+		out.writeInt(edgeCount);
+
+		for (int v = 0, offset = 0; v <= vertexCount; v++) {
+			out.writeInt(offset);
+
+			if (v < vertexCount)
+				offset += graph.outDegree(v);
+		}
+
+		for (int v = 0; v < vertexCount; v++) {
+			neighbors.of(graph, v);
+
+			for (int i = 0; i < neighbors.size; i++) {
+				out.writeInt(neighbors.vertices[i]);
+			}
+		}
+
+		out.flush();
+	}
+
+	// Collects the neighbors of one vertex at a time, reusing the same array for every vertex.
+	private static final class Neighbors implements IntConsumer {
+
+		private int[] vertices = new int[16];
+		private int size;
+
+		void of(Graph graph, int v) {
+			size = 0;
+			graph.forEachNeighbor(v, this);
+		}
+
+		@Override
+		public void accept(int w) {
+
+			if (size == vertices.length)
+				vertices = Arrays.copyOf(vertices, size * 2);
+
+			vertices[size++] = w;
+		}
+	}
+}
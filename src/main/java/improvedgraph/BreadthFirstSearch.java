@@ -0,0 +1,212 @@
+package improvedgraph;
+
+final class BreadthFirstSearch {
+
+	private BreadthFirstSearch() {
+	}
+
+	static boolean run(CompactGraph graph, int origin, int destination, SearchWorkspace workspace) {
+		workspace.beginSearch(graph.nodeCount());
+		workspace.prepareForwardSearch();
+
+		TraversalListener listener = workspace.listener;
+
+		if (listener != null)
+			listener.nodeDiscovered(origin);
+
+		if (origin == destination) {
+			workspace.recordPath(graph, origin, destination);
+			return finished(workspace, true, 0, 0);
+		}
+
+		int epoch = workspace.epoch;
+		int[] discovered = workspace.forwardStamps;
+		int[] parent = workspace.parent;
+		int[] parentEdge = workspace.parentEdge;
+		int[] scheduler = workspace.forwardScheduler;
+		int head = 0;
+		int tail = 0;
+		int settled = 0;
+		int relaxed = 0;
+
+		scheduler[tail++] = origin;
+		discovered[origin] = epoch;
+
+		while (head < tail) {
+			int currentNode = scheduler[head++];
+
+			settled++;
+
+			if (listener != null)
+				listener.nodeSettled(currentNode);
+
+			for (int edge = graph.edgesBegin(currentNode); edge < graph.edgesEnd(currentNode); edge++) {
+				int outNeighbor = graph.edgeTarget(edge);
+
+				if (discovered[outNeighbor] != epoch) {
+					discovered[outNeighbor] = epoch;
+					parent[outNeighbor] = currentNode;
+					parentEdge[outNeighbor] = edge;
+					relaxed++;
+
+					if (listener != null)
+						discovered(listener, currentNode, outNeighbor);
+
+					if (outNeighbor == destination) {
+						workspace.recordPath(graph, origin, destination);
+						return finished(workspace, true, settled, relaxed);
+					}
+
+					scheduler[tail++] = outNeighbor;
+				}
+			}
+		}
+
+		return finished(workspace, false, settled, relaxed);
+	}
+
+	private static void discovered(TraversalListener listener, int origin, int destination) {
+		listener.edgeRelaxed(origin, destination, Double.NaN);
+		listener.nodeDiscovered(destination);
+	}
+
+	static boolean finished(SearchWorkspace workspace, boolean pathFound, int nodesSettled, int edgesRelaxed) {
+		TraversalListener listener = workspace.listener;
+
+		workspace.nodesSettled = nodesSettled;
+		workspace.edgesRelaxed = edgesRelaxed;
+
+		if (listener != null)
+			listener.searchFinished(pathFound);
+
+		return pathFound;
+	}
+
+	// Grows one breadth-first level at a time from whichever side has the smaller
+	// frontier. The first level that touches the other side holds the meeting point
+	// of a shortest path, so the search stops once that level is complete.
+	static boolean runBidirectionally(CompactGraph graph, int origin, int destination, SearchWorkspace workspace) {
+		workspace.beginSearch(graph.nodeCount());
+		workspace.prepareBidirectionalSearch();
+
+		TraversalListener listener = workspace.listener;
+
+		if (listener != null) {
+			listener.nodeDiscovered(origin);
+
+			if (origin != destination)
+				listener.nodeDiscovered(destination);
+		}
+
+		if (origin == destination) {
+			workspace.recordPath(graph, origin, destination);
+			return finished(workspace, true, 0, 0);
+		}
+
+		int epoch = workspace.epoch;
+		int[] forwardDiscovered = workspace.forwardStamps;
+		int[] backwardDiscovered = workspace.backwardStamps;
+		int[] forwardDepths = workspace.forwardDepths;
+		int[] backwardDepths = workspace.backwardDepths;
+		int[] parent = workspace.parent;
+		int[] parentEdge = workspace.parentEdge;
+		int[] child = workspace.child;
+		int[] childEdge = workspace.childEdge;
+		int[] forwardScheduler = workspace.forwardScheduler;
+		int[] backwardScheduler = workspace.backwardScheduler;
+		int forwardHead = 0;
+		int forwardTail = 0;
+		int backwardHead = 0;
+		int backwardTail = 0;
+		int settled = 0;
+		int relaxed = 0;
+
+		forwardScheduler[forwardTail++] = origin;
+		forwardDiscovered[origin] = epoch;
+		forwardDepths[origin] = 0;
+		backwardScheduler[backwardTail++] = destination;
+		backwardDiscovered[destination] = epoch;
+		backwardDepths[destination] = 0;
+
+		while (forwardHead < forwardTail && backwardHead < backwardTail) {
+			int meetingNode = -1;
+			int shortestLength = Integer.MAX_VALUE;
+
+			if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+				int levelEnd = forwardTail;
+
+				while (forwardHead < levelEnd) {
+					int currentNode = forwardScheduler[forwardHead++];
+
+					settled++;
+
+					if (listener != null)
+						listener.nodeSettled(currentNode);
+
+					for (int edge = graph.edgesBegin(currentNode); edge < graph.edgesEnd(currentNode); edge++) {
+						int outNeighbor = graph.edgeTarget(edge);
+
+						if (forwardDiscovered[outNeighbor] != epoch) {
+							forwardDiscovered[outNeighbor] = epoch;
+							forwardDepths[outNeighbor] = forwardDepths[currentNode] + 1;
+							parent[outNeighbor] = currentNode;
+							parentEdge[outNeighbor] = edge;
+							forwardScheduler[forwardTail++] = outNeighbor;
+							relaxed++;
+
+							if (listener != null)
+								discovered(listener, currentNode, outNeighbor);
+
+							if (backwardDiscovered[outNeighbor] == epoch && forwardDepths[outNeighbor] + backwardDepths[outNeighbor] < shortestLength) {
+								shortestLength = forwardDepths[outNeighbor] + backwardDepths[outNeighbor];
+								meetingNode = outNeighbor;
+							}
+						}
+					}
+				}
+
+			} else {
+				int levelEnd = backwardTail;
+
+				while (backwardHead < levelEnd) {
+					int currentNode = backwardScheduler[backwardHead++];
+
+					settled++;
+
+					if (listener != null)
+						listener.nodeSettled(currentNode);
+
+					for (int slot = graph.inEdgesBegin(currentNode); slot < graph.inEdgesEnd(currentNode); slot++) {
+						int inNeighbor = graph.inEdgeOrigin(slot);
+
+						if (backwardDiscovered[inNeighbor] != epoch) {
+							backwardDiscovered[inNeighbor] = epoch;
+							backwardDepths[inNeighbor] = backwardDepths[currentNode] + 1;
+							child[inNeighbor] = currentNode;
+							childEdge[inNeighbor] = graph.inEdge(slot);
+							backwardScheduler[backwardTail++] = inNeighbor;
+							relaxed++;
+
+							if (listener != null) {
+								listener.edgeRelaxed(inNeighbor, currentNode, Double.NaN);
+								listener.nodeDiscovered(inNeighbor);
+							}
+
+							if (forwardDiscovered[inNeighbor] == epoch && forwardDepths[inNeighbor] + backwardDepths[inNeighbor] < shortestLength) {
+								shortestLength = forwardDepths[inNeighbor] + backwardDepths[inNeighbor];
+								meetingNode = inNeighbor;
+							}
+						}
+					}
+				}
+			}
+
+			if (meetingNode != -1) {
+				workspace.recordPath(graph, origin, meetingNode, destination);
+				return finished(workspace, true, settled, relaxed);
+			}
+		}
+
+		return finished(workspace, false, settled, relaxed);
+	}
+}
@@ -0,0 +1,523 @@
+package improvedgraph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import improvedgraph.util.CoordinateIndex;
+import improvedgraph.util.DequeStack;
+import improvedgraph.util.SpatialIndex;
+import improvedgraph.util.Stack;
+
+/**
+ * Read-only snapshot of a {@link Graph} laid out as compressed sparse rows.
+ * Nodes are identified by dense int ids and the out-edges of node {@code i}
+ * are the edge slots {@code [edgesBegin(i), edgesEnd(i))}, sorted by target.
+ * The rows of a frozen graph live in plain arrays. A graph opened from a file
+ * written by {@link GraphWriter} maps it instead, and is only read from disk as
+ * its pages are touched.
+ */
+public class CompactGraph {
+
+	static final EdgeType[] EDGE_TYPES = EdgeType.values();
+	static final byte NO_TYPE = -1;
+	static final int NO_LABEL = -1;
+
+	private final double[] xCoordinates;
+	private final double[] yCoordinates;
+	private final int[] offsets;
+	private final int[] targets;
+	private final double[] weights;
+	private final byte[] types;
+	private final int[] labelIds;
+	private final String[] labels;
+	private final int[] inOffsets;
+	private final int[] inOrigins;
+	private final int[] inEdges;
+	private final ThreadLocal<SearchWorkspace> workspaces = ThreadLocal.withInitial(() -> new SearchWorkspace(nodeCount()));
+	private final boolean hasNegativeWeights;
+	private volatile CoordinateIndex ids;
+	private volatile SpatialIndex spatialIndex;
+	private volatile QueryMetrics metrics;
+
+	static CompactGraph freeze(List<GraphNode> nodesById, CoordinateIndex ids) {
+		int nodeCount = nodesById.size();
+		double[] xCoordinates = new double[nodeCount];
+		double[] yCoordinates = new double[nodeCount];
+		int[] offsets = new int[nodeCount + 1];
+
+		for (int id = 0; id < nodeCount; id++) {
+			xCoordinates[id] = nodesById.get(id).xCoordinate();
+			yCoordinates[id] = nodesById.get(id).yCoordinate();
+			offsets[id + 1] = offsets[id] + nodesById.get(id).edges().size();
+		}
+
+		int edgeCount = offsets[nodeCount];
+		int[] targets = new int[edgeCount];
+		double[] weights = new double[edgeCount];
+		byte[] types = new byte[edgeCount];
+		int[] labelIds = new int[edgeCount];
+		Map<String, Integer> distinctLabels = new HashMap<>();
+
+		for (int id = 0; id < nodeCount; id++) {
+			GraphEdge[] edges = nodesById.get(id).edges().toArray(new GraphEdge[0]);
+			long[] order = new long[edges.length];
+
+			for (int i = 0; i < edges.length; i++) {
+				int target = ids.get(edges[i].destination().xCoordinate(), edges[i].destination().yCoordinate());
+
+				if (target == -1)
+					throw new IllegalStateException("The edge " + edges[i]
+							+ " leads to a node that is not in the graph and so the graph cannot be frozen.");
+
+				order[i] = ((long) target << 32) | i;
+			}
+
+			Arrays.sort(order);
+
+			for (int i = 0; i < edges.length; i++) {
+				GraphEdge edge = edges[(int) order[i]];
+				int slot = offsets[id] + i;
+
+				targets[slot] = (int) (order[i] >>> 32);
+				weights[slot] = edge.weight();
+				types[slot] = edge.type() == null ? NO_TYPE : (byte) edge.type().ordinal();
+				labelIds[slot] = edge.label() == null ? NO_LABEL : distinctLabels.computeIfAbsent(edge.label(), label -> distinctLabels.size());
+			}
+		}
+
+		String[] labels = new String[distinctLabels.size()];
+
+		distinctLabels.forEach((label, labelId) -> labels[labelId] = label);
+
+		return new CompactGraph(xCoordinates, yCoordinates, offsets, targets, weights, types, labelIds, labels, new CoordinateIndex(ids));
+	}
+
+	// Takes ownership of the arrays. The out-edges of each node must already be sorted by target.
+	CompactGraph(double[] xCoordinates, double[] yCoordinates, int[] offsets, int[] targets, double[] weights, byte[] types,
+			int[] labelIds, String[] labels, CoordinateIndex ids) {
+		int nodeCount = xCoordinates.length;
+		int edgeCount = targets.length;
+		boolean hasNegativeWeights = false;
+		int[] inOffsets = new int[nodeCount + 1];
+		int[] inOrigins = new int[edgeCount];
+		int[] inEdges = new int[edgeCount];
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			inOffsets[targets[edge] + 1]++;
+			hasNegativeWeights |= weights[edge] < 0.0;
+		}
+
+		for (int id = 0; id < nodeCount; id++) {
+			inOffsets[id + 1] += inOffsets[id];
+		}
+
+		int[] cursors = Arrays.copyOf(inOffsets, nodeCount);
+
+		for (int id = 0; id < nodeCount; id++) {
+			for (int edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+				int slot = cursors[targets[edge]]++;
+
+				inOrigins[slot] = id;
+				inEdges[slot] = edge;
+			}
+		}
+
+		this.xCoordinates = xCoordinates;
+		this.yCoordinates = yCoordinates;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+		this.types = types;
+		this.labelIds = labelIds;
+		this.labels = labels;
+		this.inOffsets = inOffsets;
+		this.inOrigins = inOrigins;
+		this.inEdges = inEdges;
+		this.ids = ids;
+		this.hasNegativeWeights = hasNegativeWeights;
+	}
+
+	// For a subclass that keeps the rows elsewhere and overrides every accessor of them.
+	CompactGraph(boolean hasNegativeWeights) {
+		this.xCoordinates = null;
+		this.yCoordinates = null;
+		this.offsets = null;
+		this.targets = null;
+		this.weights = null;
+		this.types = null;
+		this.labelIds = null;
+		this.labels = null;
+		this.inOffsets = null;
+		this.inOrigins = null;
+		this.inEdges = null;
+		this.hasNegativeWeights = hasNegativeWeights;
+	}
+
+	// Maps the file written by GraphWriter.writeBinary. Nothing but the header is read up front.
+	public static CompactGraph open(Path path) throws IOException {
+		return MappedCompactGraph.map(path);
+	}
+
+	public int nodeCount() {
+		return xCoordinates.length;
+	}
+
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	public boolean contains(GraphNode node) {
+		return idOf(node) != -1;
+	}
+
+	public int idOf(GraphNode node) {
+		return node == null ? -1 : ids().get(node.xCoordinate(), node.yCoordinate());
+	}
+
+	public int idOf(double xCoordinate, double yCoordinate) {
+		return ids().get(xCoordinate, yCoordinate);
+	}
+
+	// An opened graph reads all of its coordinates the first time a node is looked up.
+	private CoordinateIndex ids() {
+		CoordinateIndex index = ids;
+
+		if (index == null) {
+			synchronized (this) {
+				index = ids;
+
+				if (index == null) {
+					index = new CoordinateIndex(nodeCount());
+
+					for (int id = 0; id < nodeCount(); id++) {
+						index.putIfAbsent(xCoordinate(id), yCoordinate(id), id);
+					}
+
+					ids = index;
+				}
+			}
+		}
+
+		return index;
+	}
+
+	public GraphNode node(int id) {
+		return new GraphNode(xCoordinate(id), yCoordinate(id));
+	}
+
+	public double xCoordinate(int id) {
+		return xCoordinates[id];
+	}
+
+	public double yCoordinate(int id) {
+		return yCoordinates[id];
+	}
+
+	public SpatialIndex spatialIndex() {
+		SpatialIndex index = spatialIndex;
+
+		if (index == null) {
+			synchronized (this) {
+				index = spatialIndex;
+
+				if (index == null) {
+					index = buildSpatialIndex();
+					spatialIndex = index;
+				}
+			}
+		}
+
+		return index;
+	}
+
+	private SpatialIndex buildSpatialIndex() {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for (int id = 0; id < nodeCount(); id++) {
+			minX = Math.min(minX, xCoordinate(id));
+			minY = Math.min(minY, yCoordinate(id));
+			maxX = Math.max(maxX, xCoordinate(id));
+			maxY = Math.max(maxY, yCoordinate(id));
+		}
+
+		SpatialIndex index = new SpatialIndex(SpatialIndex.cellSizeFor(minX, minY, maxX, maxY, nodeCount()));
+
+		for (int id = 0; id < nodeCount(); id++) {
+			index.add(id, xCoordinate(id), yCoordinate(id));
+		}
+
+		return index;
+	}
+
+	public int outDegree(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	public int edgesBegin(int id) {
+		return offsets[id];
+	}
+
+	public int edgesEnd(int id) {
+		return offsets[id + 1];
+	}
+
+	public int edgeTarget(int edge) {
+		return targets[edge];
+	}
+
+	public double edgeWeight(int edge) {
+		return weights[edge];
+	}
+
+	EdgeType edgeType(int edge) {
+		byte type = types[edge];
+
+		return type == NO_TYPE ? null : EDGE_TYPES[type];
+	}
+
+	String edgeLabel(int edge) {
+		int labelId = edgeLabelId(edge);
+
+		return labelId == NO_LABEL ? null : label(labelId);
+	}
+
+	// Edges sharing a label share its id, and -1 stands for no label.
+	int edgeLabelId(int edge) {
+		return labelIds[edge];
+	}
+
+	int labelCount() {
+		return labels.length;
+	}
+
+	String label(int labelId) {
+		return labels[labelId];
+	}
+
+	boolean hasNegativeWeights() {
+		return hasNegativeWeights;
+	}
+
+	public int inDegree(int id) {
+		return inOffsets[id + 1] - inOffsets[id];
+	}
+
+	public int inEdgesBegin(int id) {
+		return inOffsets[id];
+	}
+
+	public int inEdgesEnd(int id) {
+		return inOffsets[id + 1];
+	}
+
+	public int inEdgeOrigin(int slot) {
+		return inOrigins[slot];
+	}
+
+	public int inEdge(int slot) {
+		return inEdges[slot];
+	}
+
+	public GraphEdge edge(int origin, int edge) {
+		GraphEdge graphEdge = new GraphEdge(node(origin), node(edgeTarget(edge)));
+
+		graphEdge.weight(edgeWeight(edge));
+		graphEdge.label(edgeLabel(edge));
+		graphEdge.type(edgeType(edge));
+
+		return graphEdge;
+	}
+
+	public SearchWorkspace workspace() {
+		return workspaces.get();
+	}
+
+	// Records every search run on this graph, from any thread, until it is set back to null.
+	public void metrics(QueryMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public QueryMetrics metrics() {
+		return metrics;
+	}
+
+	public Stack<GraphEdge> navigate(GraphNode origin, GraphNode destination) {
+		validateJourney(origin, destination);
+
+		return navigate(idOf(origin), idOf(destination));
+	}
+
+	public Stack<GraphEdge> navigate(int origin, int destination) {
+		SearchWorkspace workspace = workspace();
+
+		return findPath(origin, destination, workspace) ? pathEdges(workspace) : new DequeStack<>();
+	}
+
+	public boolean findPath(int origin, int destination, SearchWorkspace workspace) {
+		checkNode(origin);
+		checkNode(destination);
+
+		QueryMetrics metrics = this.metrics;
+
+		if (metrics == null)
+			return BreadthFirstSearch.run(this, origin, destination, workspace);
+
+		long start = System.nanoTime();
+
+		return measured(metrics, start, workspace, BreadthFirstSearch.run(this, origin, destination, workspace));
+	}
+
+	public Stack<GraphEdge> navigateBidirectionally(GraphNode origin, GraphNode destination) {
+		validateJourney(origin, destination);
+
+		return navigateBidirectionally(idOf(origin), idOf(destination));
+	}
+
+	public Stack<GraphEdge> navigateBidirectionally(int origin, int destination) {
+		SearchWorkspace workspace = workspace();
+
+		return findPathBidirectionally(origin, destination, workspace) ? pathEdges(workspace) : new DequeStack<>();
+	}
+
+	public boolean findPathBidirectionally(int origin, int destination, SearchWorkspace workspace) {
+		checkNode(origin);
+		checkNode(destination);
+
+		QueryMetrics metrics = this.metrics;
+
+		if (metrics == null)
+			return BreadthFirstSearch.runBidirectionally(this, origin, destination, workspace);
+
+		long start = System.nanoTime();
+
+		return measured(metrics, start, workspace, BreadthFirstSearch.runBidirectionally(this, origin, destination, workspace));
+	}
+
+	public WeightedPath navigateByWeight(GraphNode origin, GraphNode destination) {
+		validateJourney(origin, destination);
+
+		return navigateByWeight(idOf(origin), idOf(destination));
+	}
+
+	public WeightedPath navigateByWeight(int origin, int destination) {
+		return navigateByWeight(origin, destination, 0.0);
+	}
+
+	public WeightedPath navigateByWeight(GraphNode origin, GraphNode destination, double heuristicScale) {
+		validateJourney(origin, destination);
+
+		return navigateByWeight(idOf(origin), idOf(destination), heuristicScale);
+	}
+
+	public WeightedPath navigateByWeight(int origin, int destination, double heuristicScale) {
+		SearchWorkspace workspace = workspace();
+
+		if (!findCheapestPath(origin, destination, heuristicScale, workspace))
+			return WeightedPath.unreachable();
+
+		return new WeightedPath(pathEdges(workspace), workspace.pathCost());
+	}
+
+	// The scale converts straight-line distance into weight units. The search only
+	// stays exact while no edge weighs less than the scaled length of the edge.
+	public boolean findCheapestPath(int origin, int destination, double heuristicScale, SearchWorkspace workspace) {
+		checkNode(origin);
+		checkNode(destination);
+
+		if (hasNegativeWeights)
+			throw new IllegalStateException("You are trying to navigate by weight on a graph with negative edge weights. Only non-negative weights are supported.");
+
+		if (!(heuristicScale >= 0.0) || Double.isInfinite(heuristicScale))
+			throw new IllegalArgumentException("You are trying to navigate with a heuristic scale of " + heuristicScale + ". The scale must be a finite, non-negative number.");
+
+		QueryMetrics metrics = this.metrics;
+
+		if (metrics == null)
+			return ShortestPathSearch.run(this, origin, destination, heuristicScale, workspace);
+
+		long start = System.nanoTime();
+
+		return measured(metrics, start, workspace, ShortestPathSearch.run(this, origin, destination, heuristicScale, workspace));
+	}
+
+	// Hops from the origin to every node, or -1 for the nodes it cannot reach, found by a parallel breadth-first search.
+	public int[] hopDistances(int origin) {
+		return hopDistances(origin, ForkJoinPool.commonPool());
+	}
+
+	public int[] hopDistances(int origin, ForkJoinPool pool) {
+		checkNode(origin);
+
+		return ParallelBreadthFirstSearch.run(this, origin, -1, pool);
+	}
+
+	public boolean isReachable(int origin, int destination) {
+		return isReachable(origin, destination, ForkJoinPool.commonPool());
+	}
+
+	public boolean isReachable(int origin, int destination, ForkJoinPool pool) {
+		checkNode(origin);
+		checkNode(destination);
+
+		return ParallelBreadthFirstSearch.reaches(this, origin, destination, pool);
+	}
+
+	public BitSet reachableFrom(int origin) {
+		return reachableFrom(origin, ForkJoinPool.commonPool());
+	}
+
+	public BitSet reachableFrom(int origin, ForkJoinPool pool) {
+		int[] hops = hopDistances(origin, pool);
+		BitSet reachable = new BitSet(hops.length);
+
+		for (int id = 0; id < hops.length; id++) {
+			if (hops[id] != -1)
+				reachable.set(id);
+		}
+
+		return reachable;
+	}
+
+	private void checkNode(int id) {
+
+		if (id < 0 || id >= nodeCount())
+			throw new IllegalArgumentException("You are trying to search from or to the node " + id + ", which is not in the graph. Please, check it out.");
+	}
+
+	private static boolean measured(QueryMetrics metrics, long start, SearchWorkspace workspace, boolean pathFound) {
+		metrics.record(System.nanoTime() - start, workspace, pathFound);
+
+		return pathFound;
+	}
+
+	void validateJourney(GraphNode origin, GraphNode destination) {
+
+		if(origin == null || destination == null)
+			throw new IllegalArgumentException("You are trying to navigate " + (origin == null ? "from a null origin" : "to a null destination") + ". Please, check it out.");
+
+		if(!contains(origin))
+			throw new IllegalArgumentException("You are trying to navigate from an origin that is not in the graph. Please, check it out.");
+
+		if(!contains(destination))
+			throw new IllegalArgumentException("You are trying to navigate to a destination that is not in the graph. Please, check it out.");
+	}
+
+	public Stack<GraphEdge> pathEdges(SearchWorkspace workspace) {
+		Stack<GraphEdge> path = new DequeStack<>();
+
+		for (int i = workspace.pathLength() - 1; i >= 0; i--) {
+			path.push(edge(workspace.pathNode(i), workspace.pathEdge(i)));
+		}
+
+		return path;
+	}
+}
@@ -0,0 +1,374 @@
+package improvedgraph;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import improvedgraph.util.CoordinateIndex;
+
+/**
+ * Collects nodes and edges from many threads at once. Every node belongs to one
+ * of many stripes, picked by hashing its coordinates, and its stripe also keeps
+ * its out-edges, so two threads only wait for each other when they touch nodes
+ * of the same stripe. Like {@link GraphNode#addEdgeTo(GraphNode)}, an edge may
+ * only be added once. Once every thread is done, the builder is turned into a
+ * {@link Graph} or a {@link CompactGraph}, laying out the stripes in parallel.
+ */
+public class ConcurrentGraphBuilder {
+
+	private final Stripe[] stripes;
+	private final int stripeMask;
+	private final AtomicInteger nodeCount = new AtomicInteger();
+	private final AtomicInteger edgeCount = new AtomicInteger();
+	private final Map<String, Integer> labelIds = new ConcurrentHashMap<>();
+	private final AtomicInteger labelCount = new AtomicInteger();
+
+	public ConcurrentGraphBuilder() {
+		this(Runtime.getRuntime().availableProcessors() * 8);
+	}
+
+	// More stripes mean fewer collisions between threads, at the cost of some memory each.
+	public ConcurrentGraphBuilder(int stripeCount) {
+
+		if (stripeCount <= 0 || stripeCount > (1 << 16))
+			throw new IllegalArgumentException("You are trying to create a graph builder with " + stripeCount + " stripes. Please, use between 1 and 65536.");
+
+		int size = Integer.highestOneBit(stripeCount * 2 - 1);
+
+		stripes = new Stripe[size];
+		stripeMask = size - 1;
+
+		for (int stripe = 0; stripe < size; stripe++) {
+			stripes[stripe] = new Stripe();
+		}
+	}
+
+	public int nodeCount() {
+		return nodeCount.get();
+	}
+
+	public int edgeCount() {
+		return edgeCount.get();
+	}
+
+	// Returns the id of the node, which is new unless a node already sat at the coordinates.
+	public int addNode(double xCoordinate, double yCoordinate) {
+		Stripe stripe = stripeOf(xCoordinate, yCoordinate);
+
+		synchronized (stripe) {
+			int node = stripe.nodeAt(xCoordinate, yCoordinate);
+
+			return node != -1 ? stripe.ids[node] : stripe.addNode(xCoordinate, yCoordinate, nodeCount.getAndIncrement());
+		}
+	}
+
+	public int addNode(GraphNode node) {
+
+		if (node == null)
+			throw new IllegalArgumentException("You are trying to add a null node to the graph and that is nor allowed. Please, check it out.");
+
+		return addNode(node.xCoordinate(), node.yCoordinate());
+	}
+
+	public int idOf(double xCoordinate, double yCoordinate) {
+		Stripe stripe = stripeOf(xCoordinate, yCoordinate);
+
+		synchronized (stripe) {
+			int node = stripe.nodeAt(xCoordinate, yCoordinate);
+
+			return node == -1 ? -1 : stripe.ids[node];
+		}
+	}
+
+	public void addEdge(GraphNode origin, GraphNode destination) {
+		addEdge(origin, destination, 0.0, null, null);
+	}
+
+	public void addEdge(GraphNode origin, GraphNode destination, double weight, EdgeType type, String label) {
+
+		if (origin == null || destination == null)
+			throw new IllegalArgumentException("You are trying to create an edge "
+					+ (origin == null ? "from a null origin" : "to a null destination")
+					+ " node. Please, check it out.");
+
+		addEdge(origin.xCoordinate(), origin.yCoordinate(), destination.xCoordinate(), destination.yCoordinate(), weight, type, label);
+	}
+
+	// Both nodes must have been added already, by this thread or by one that has handed its work over.
+	public void addEdge(double originX, double originY, double destinationX, double destinationY, double weight, EdgeType type, String label) {
+		int target = idOf(destinationX, destinationY);
+
+		if (target == -1)
+			throw new IllegalArgumentException(
+					"You are trying to create an edge to a destination node that is not in the graph. Please, check it out.");
+
+		int labelId = label == null ? CompactGraph.NO_LABEL : labelIds.computeIfAbsent(label, newLabel -> labelCount.getAndIncrement());
+		Stripe stripe = stripeOf(originX, originY);
+
+		synchronized (stripe) {
+			int node = stripe.nodeAt(originX, originY);
+
+			if (node == -1)
+				throw new IllegalArgumentException(
+						"You are trying to create an edge from an origin node that is not in the graph. Please, check it out.");
+
+			if (!stripe.addEdge(node, target, weight, type == null ? CompactGraph.NO_TYPE : (byte) type.ordinal(), labelId))
+				throw new IllegalArgumentException(
+						"You are trying to create an edge that already exists. Multiple edges from the same origin to the same destination are not allowed in this graph.");
+		}
+
+		edgeCount.incrementAndGet();
+	}
+
+	private Stripe stripeOf(double xCoordinate, double yCoordinate) {
+		long hash = Double.doubleToLongBits(xCoordinate) * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(yCoordinate);
+
+		hash ^= hash >>> 29;
+		hash *= 0xBF58476D1CE4E5B9L;
+		hash ^= hash >>> 32;
+
+		return stripes[(int) hash & stripeMask];
+	}
+
+	// Only to be called once every thread adding to the builder is done.
+	public Graph build() {
+		GraphNode[] nodes = new GraphNode[nodeCount.get()];
+		String[] labels = labels();
+
+		if (nodes.length == 0)
+			throw new IllegalStateException("You are trying to build a graph without nodes. There is no graph without nodes and so, at least one node is required.");
+
+		for (Stripe stripe : stripes) {
+			for (int node = 0; node < stripe.nodeCount; node++) {
+				nodes[stripe.ids[node]] = new GraphNode(stripe.xCoordinates[node], stripe.yCoordinates[node]);
+			}
+		}
+
+		// A node only ever gets its edges from its own stripe, so the stripes can be laid out side by side.
+		IntStream.range(0, stripes.length).parallel().forEach(index -> {
+			Stripe stripe = stripes[index];
+
+			for (int edge = 0; edge < stripe.edgeCount; edge++) {
+				GraphEdge graphEdge = nodes[stripe.ids[stripe.origins[edge]]].addEdgeTo(nodes[stripe.targets[edge]]);
+
+				graphEdge.weight(stripe.weights[edge]);
+				graphEdge.type(stripe.types[edge] == CompactGraph.NO_TYPE ? null : CompactGraph.EDGE_TYPES[stripe.types[edge]]);
+				graphEdge.label(stripe.labelIds[edge] == CompactGraph.NO_LABEL ? null : labels[stripe.labelIds[edge]]);
+			}
+		});
+
+		// The graph numbers its nodes in the order it is given them, so they keep the ids handed out here.
+		Set<GraphNode> nodeSet = new LinkedHashSet<>(Arrays.asList(nodes));
+
+		return new Graph(nodeSet);
+	}
+
+	// Only to be called once every thread adding to the builder is done.
+	public CompactGraph freeze() {
+		int nodes = nodeCount.get();
+		double[] xCoordinates = new double[nodes];
+		double[] yCoordinates = new double[nodes];
+		int[] offsets = new int[nodes + 1];
+		CoordinateIndex ids = new CoordinateIndex(nodes);
+
+		for (Stripe stripe : stripes) {
+			for (int node = 0; node < stripe.nodeCount; node++) {
+				int id = stripe.ids[node];
+
+				xCoordinates[id] = stripe.xCoordinates[node];
+				yCoordinates[id] = stripe.yCoordinates[node];
+				offsets[id + 1] = stripe.degrees[node];
+				ids.putIfAbsent(xCoordinates[id], yCoordinates[id], id);
+			}
+		}
+
+		for (int id = 0; id < nodes; id++) {
+			offsets[id + 1] += offsets[id];
+		}
+
+		int edges = offsets[nodes];
+		int[] targets = new int[edges];
+		double[] weights = new double[edges];
+		byte[] types = new byte[edges];
+		int[] labelIds = new int[edges];
+
+		// Every row is owned by a single stripe, so each stripe fills its own rows.
+		IntStream.range(0, stripes.length).parallel().forEach(index -> stripes[index].layOut(offsets, targets, weights, types, labelIds));
+
+		return new CompactGraph(xCoordinates, yCoordinates, offsets, targets, weights, types, labelIds, labels(), ids);
+	}
+
+	private String[] labels() {
+		String[] labels = new String[labelIds.size()];
+
+		labelIds.forEach((label, labelId) -> labels[labelId] = label);
+
+		return labels;
+	}
+
+	private static final class Stripe {
+
+		private final CoordinateIndex nodes = new CoordinateIndex();
+		private int[] ids = new int[16];
+		private double[] xCoordinates = new double[16];
+		private double[] yCoordinates = new double[16];
+		private int[] degrees = new int[16];
+		private int nodeCount;
+
+		private long[] edgeKeys = newEdgeKeys(64);
+		private int[] origins = new int[16];
+		private int[] targets = new int[16];
+		private double[] weights = new double[16];
+		private byte[] types = new byte[16];
+		private int[] labelIds = new int[16];
+		private int edgeCount;
+
+		int nodeAt(double xCoordinate, double yCoordinate) {
+			return nodes.get(xCoordinate, yCoordinate);
+		}
+
+		int addNode(double xCoordinate, double yCoordinate, int id) {
+
+			if (nodeCount == ids.length) {
+				int capacity = nodeCount * 2;
+
+				ids = Arrays.copyOf(ids, capacity);
+				xCoordinates = Arrays.copyOf(xCoordinates, capacity);
+				yCoordinates = Arrays.copyOf(yCoordinates, capacity);
+				degrees = Arrays.copyOf(degrees, capacity);
+			}
+
+			nodes.putIfAbsent(xCoordinate, yCoordinate, nodeCount);
+			ids[nodeCount] = id;
+			xCoordinates[nodeCount] = xCoordinate;
+			yCoordinates[nodeCount] = yCoordinate;
+			nodeCount++;
+
+			return id;
+		}
+
+		// The origin is a node of this stripe, the target the id of any node.
+		boolean addEdge(int origin, int target, double weight, byte type, int labelId) {
+
+			if (!addEdgeKey(((long) origin << 32) | target))
+				return false;
+
+			if (edgeCount == origins.length) {
+				int capacity = edgeCount * 2;
+
+				origins = Arrays.copyOf(origins, capacity);
+				targets = Arrays.copyOf(targets, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+				types = Arrays.copyOf(types, capacity);
+				labelIds = Arrays.copyOf(labelIds, capacity);
+			}
+
+			origins[edgeCount] = origin;
+			targets[edgeCount] = target;
+			weights[edgeCount] = weight;
+			types[edgeCount] = type;
+			labelIds[edgeCount] = labelId;
+			edgeCount++;
+			degrees[origin]++;
+
+			return true;
+		}
+
+		private static long[] newEdgeKeys(int capacity) {
+			long[] keys = new long[capacity];
+
+			Arrays.fill(keys, -1L);
+
+			return keys;
+		}
+
+		private boolean addEdgeKey(long key) {
+			int mask = edgeKeys.length - 1;
+			int slot = slotFor(key, mask);
+
+			for (; edgeKeys[slot] != -1L; slot = (slot + 1) & mask) {
+				if (edgeKeys[slot] == key)
+					return false;
+			}
+
+			edgeKeys[slot] = key;
+
+			if (edgeCount + 1 > (edgeKeys.length >>> 1)) {
+				long[] oldKeys = edgeKeys;
+
+				edgeKeys = newEdgeKeys(oldKeys.length * 2);
+				mask = edgeKeys.length - 1;
+
+				for (long oldKey : oldKeys) {
+					if (oldKey != -1L) {
+						int newSlot = slotFor(oldKey, mask);
+
+						while (edgeKeys[newSlot] != -1L) {
+							newSlot = (newSlot + 1) & mask;
+						}
+
+						edgeKeys[newSlot] = oldKey;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		private static int slotFor(long key, int mask) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+
+			return (int) (hash ^ (hash >>> 32)) & mask;
+		}
+
+		void layOut(int[] offsets, int[] rowTargets, double[] rowWeights, byte[] rowTypes, int[] rowLabelIds) {
+			int[] firstEdges = new int[nodeCount + 1];
+			int[] order = new int[edgeCount];
+
+			for (int edge = 0; edge < edgeCount; edge++) {
+				firstEdges[origins[edge] + 1]++;
+			}
+
+			for (int node = 0; node < nodeCount; node++) {
+				firstEdges[node + 1] += firstEdges[node];
+			}
+
+			int[] cursors = Arrays.copyOf(firstEdges, nodeCount);
+
+			for (int edge = 0; edge < edgeCount; edge++) {
+				order[cursors[origins[edge]]++] = edge;
+			}
+
+			long[] row = new long[16];
+
+			for (int node = 0; node < nodeCount; node++) {
+				int degree = degrees[node];
+				int slot = offsets[ids[node]];
+
+				if (degree > row.length)
+					row = new long[Math.max(degree, row.length * 2)];
+
+				for (int i = 0; i < degree; i++) {
+					int edge = order[firstEdges[node] + i];
+
+					row[i] = ((long) targets[edge] << 32) | edge;
+				}
+
+				Arrays.sort(row, 0, degree);
+
+				for (int i = 0; i < degree; i++, slot++) {
+					int edge = (int) row[i];
+
+					rowTargets[slot] = (int) (row[i] >>> 32);
+					rowWeights[slot] = weights[edge];
+					rowTypes[slot] = types[edge];
+					rowLabelIds[slot] = labelIds[edge];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,385 @@
+package improvedgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+/**
+ * Shortest journeys on a static weighted graph, answered from a precomputed
+ * contraction hierarchy. Every node is given a rank, and shortcut edges are
+ * added so that some cheapest journey between any two nodes first climbs and
+ * then descends the ranks. Queries therefore only search upwards from both
+ * ends, and the shortcuts on the journey found are unpacked back into edges of
+ * the graph. Building takes a while, so a hierarchy can be written out and
+ * read back for the same graph.
+ */
+public class ContractionHierarchy {
+
+	public static final int BINARY_MAGIC = 0x47524348;
+	public static final int BINARY_VERSION = 3;
+
+	private static final int READ_CHUNK_BYTES = 1 << 16;
+
+	private final CompactGraph graph;
+	private final int[] ranks;
+	private final int[] upOffsets;
+	private final int[] upEdges;
+	private final int[] downOffsets;
+	private final int[] downEdges;
+	private final int[] edgeOrigins;
+	private final int[] edgeTargets;
+	private final double[] edgeWeights;
+	private final int[] originalEdges;
+	private final int[] firstHalves;
+	private final int[] secondHalves;
+
+	// Takes ownership of the arrays. Original edges are -1 for shortcuts, and halves are -1 for edges of the graph.
+	ContractionHierarchy(CompactGraph graph, int[] ranks, int[] upOffsets, int[] upEdges, int[] downOffsets, int[] downEdges,
+			int[] edgeOrigins, int[] edgeTargets, double[] edgeWeights, int[] originalEdges, int[] firstHalves, int[] secondHalves) {
+		this.graph = graph;
+		this.ranks = ranks;
+		this.upOffsets = upOffsets;
+		this.upEdges = upEdges;
+		this.downOffsets = downOffsets;
+		this.downEdges = downEdges;
+		this.edgeOrigins = edgeOrigins;
+		this.edgeTargets = edgeTargets;
+		this.edgeWeights = edgeWeights;
+		this.originalEdges = originalEdges;
+		this.firstHalves = firstHalves;
+		this.secondHalves = secondHalves;
+	}
+
+	public static ContractionHierarchy build(Graph graph) {
+		return build(graph.freeze());
+	}
+
+	public static ContractionHierarchy build(CompactGraph graph) {
+		return build(graph, ForkJoinPool.commonPool());
+	}
+
+	public static ContractionHierarchy build(CompactGraph graph, ForkJoinPool pool) {
+
+		if (graph.hasNegativeWeights())
+			throw new IllegalStateException("You are trying to contract a graph with negative edge weights. Only non-negative weights are supported.");
+
+		return NodeContractor.contract(graph, pool);
+	}
+
+	public CompactGraph graph() {
+		return graph;
+	}
+
+	// Nodes are contracted from rank 0 upwards, so higher ranks mark the more important nodes.
+	public int rank(int id) {
+		return ranks[id];
+	}
+
+	// Edges of the graph that lie on some cheapest journey, plus shortcuts, plus the halves shortcuts unpack into.
+	public int edgeCount() {
+		return edgeOrigins.length;
+	}
+
+	public int shortcutCount() {
+		int shortcuts = 0;
+
+		for (int edge = 0; edge < originalEdges.length; edge++) {
+			if (originalEdges[edge] == -1)
+				shortcuts++;
+		}
+
+		return shortcuts;
+	}
+
+	int upEdgesBegin(int id) {
+		return upOffsets[id];
+	}
+
+	int upEdgesEnd(int id) {
+		return upOffsets[id + 1];
+	}
+
+	// The edges leaving the node towards higher ranks.
+	int upEdge(int slot) {
+		return upEdges[slot];
+	}
+
+	int downEdgesBegin(int id) {
+		return downOffsets[id];
+	}
+
+	int downEdgesEnd(int id) {
+		return downOffsets[id + 1];
+	}
+
+	// The edges entering the node from higher ranks.
+	int downEdge(int slot) {
+		return downEdges[slot];
+	}
+
+	int edgeOrigin(int edge) {
+		return edgeOrigins[edge];
+	}
+
+	int edgeTarget(int edge) {
+		return edgeTargets[edge];
+	}
+
+	double edgeWeight(int edge) {
+		return edgeWeights[edge];
+	}
+
+	boolean isShortcut(int edge) {
+		return originalEdges[edge] == -1;
+	}
+
+	int originalEdge(int edge) {
+		return originalEdges[edge];
+	}
+
+	int firstHalf(int edge) {
+		return firstHalves[edge];
+	}
+
+	int secondHalf(int edge) {
+		return secondHalves[edge];
+	}
+
+	public WeightedPath navigate(GraphNode origin, GraphNode destination) {
+		graph.validateJourney(origin, destination);
+
+		return navigate(graph.idOf(origin), graph.idOf(destination));
+	}
+
+	public WeightedPath navigate(int origin, int destination) {
+		SearchWorkspace workspace = graph.workspace();
+
+		if (!findCheapestPath(origin, destination, workspace))
+			return WeightedPath.unreachable();
+
+		return new WeightedPath(graph.pathEdges(workspace), workspace.pathCost());
+	}
+
+	// The path is left in the workspace as edges of the graph, as for CompactGraph.findCheapestPath.
+	public boolean findCheapestPath(int origin, int destination, SearchWorkspace workspace) {
+		QueryMetrics metrics = graph.metrics();
+
+		if (metrics == null)
+			return HierarchySearch.run(this, origin, destination, workspace);
+
+		long start = System.nanoTime();
+		boolean pathFound = HierarchySearch.run(this, origin, destination, workspace);
+
+		metrics.record(System.nanoTime() - start, workspace, pathFound);
+
+		return pathFound;
+	}
+
+	/*
+	 * Everything is big-endian. The header holds eight ints: the magic number,
+	 * the format version, the node count N and edge count E of the graph, the
+	 * hierarchy edge count H, the number of upward edges U, the number of
+	 * downward edges D and the checksum of the graph's edges. Then come, in
+	 * this order:
+	 *
+	 *   doubles  edge weights [H]
+	 *   ints     ranks [N], up offsets [N + 1], up edges [U],
+	 *            down offsets [N + 1], down edges [D],
+	 *            edge origins [H], edge targets [H],
+	 *            original edges [H] (-1 for shortcuts),
+	 *            first halves [H], second halves [H] (-1 for edges of the graph)
+	 *
+	 * The graph itself is not written, so the hierarchy can only be read back
+	 * together with a graph frozen from the same nodes and edges, which the
+	 * counts and the checksum check.
+	 */
+	public void write(OutputStream stream) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+
+		out.writeInt(BINARY_MAGIC);
+		out.writeInt(BINARY_VERSION);
+		out.writeInt(graph.nodeCount());
+		out.writeInt(graph.edgeCount());
+		out.writeInt(edgeCount());
+		out.writeInt(upEdges.length);
+		out.writeInt(downEdges.length);
+		out.writeInt(checksum(graph));
+
+		for (double weight : edgeWeights) {
+			out.writeDouble(weight);
+		}
+
+		writeInts(out, ranks);
+		writeInts(out, upOffsets);
+		writeInts(out, upEdges);
+		writeInts(out, downOffsets);
+		writeInts(out, downEdges);
+		writeInts(out, edgeOrigins);
+		writeInts(out, edgeTargets);
+		writeInts(out, originalEdges);
+		writeInts(out, firstHalves);
+		writeInts(out, secondHalves);
+		out.flush();
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	// A CRC-32 of the row ends, targets and weights of every edge, which almost certainly changes if any of them does.
+	static int checksum(CompactGraph graph) {
+		CRC32 checksum = new CRC32();
+		ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK_BYTES);
+
+		for (int id = 0; id < graph.nodeCount(); id++) {
+			room(checksum, chunk).putInt(graph.edgesEnd(id));
+		}
+
+		for (int edge = 0; edge < graph.edgeCount(); edge++) {
+			room(checksum, chunk).putInt(graph.edgeTarget(edge));
+			room(checksum, chunk).putDouble(graph.edgeWeight(edge));
+		}
+
+		chunk.flip();
+		checksum.update(chunk);
+
+		return (int) checksum.getValue();
+	}
+
+	// Hands the chunk over to the checksum whenever it has no room left for another double.
+	private static ByteBuffer room(CRC32 checksum, ByteBuffer chunk) {
+
+		if (chunk.remaining() < 8) {
+			chunk.flip();
+			checksum.update(chunk);
+			chunk.clear();
+		}
+
+		return chunk;
+	}
+
+	// Reads a hierarchy written by write for the given graph. Nothing past the hierarchy
+	// is read, so the stream can go on with other data. The stream is left open.
+	// Data whose offsets or indices point outside the hierarchy fails with an IOException.
+	public static ContractionHierarchy read(CompactGraph graph, InputStream stream) throws IOException {
+		DataInputStream in = new DataInputStream(stream);
+
+		if (in.readInt() != BINARY_MAGIC)
+			throw new IllegalArgumentException("You are trying to read a contraction hierarchy from data that does not hold one. Please, check it out.");
+
+		int version = in.readInt();
+
+		if (version != BINARY_VERSION)
+			throw new IllegalArgumentException("You are trying to read a contraction hierarchy written in version " + version
+					+ " of its format. Only version " + BINARY_VERSION + " is supported.");
+
+		int nodeCount = in.readInt();
+		int graphEdgeCount = in.readInt();
+		int edgeCount = in.readInt();
+		int upEdgeCount = in.readInt();
+		int downEdgeCount = in.readInt();
+		int checksum = in.readInt();
+
+		if (nodeCount != graph.nodeCount() || graphEdgeCount != graph.edgeCount())
+			throw new IllegalArgumentException("You are trying to read a contraction hierarchy of a graph with " + nodeCount + " nodes and "
+					+ graphEdgeCount + " edges for a graph with " + graph.nodeCount() + " nodes and " + graph.edgeCount() + " edges. Please, check it out.");
+
+		if (checksum != checksum(graph))
+			throw new IllegalArgumentException("You are trying to read a contraction hierarchy of a graph whose edges lead elsewhere or weigh"
+					+ " differently from those of the given graph. Please, check it out.");
+
+		if (edgeCount < 0 || upEdgeCount < 0 || downEdgeCount < 0 || (long) upEdgeCount + downEdgeCount > edgeCount)
+			throw corrupt();
+
+		double[] edgeWeights = readDoubles(in, edgeCount);
+		int[] ranks = readInts(in, nodeCount);
+		int[] upOffsets = readInts(in, nodeCount + 1);
+		int[] upEdges = readInts(in, upEdgeCount);
+		int[] downOffsets = readInts(in, nodeCount + 1);
+		int[] downEdges = readInts(in, downEdgeCount);
+		int[] edgeOrigins = readInts(in, edgeCount);
+		int[] edgeTargets = readInts(in, edgeCount);
+		int[] originalEdges = readInts(in, edgeCount);
+		int[] firstHalves = readInts(in, edgeCount);
+		int[] secondHalves = readInts(in, edgeCount);
+
+		// Queries trust these arrays to index one another, so a corrupt file must not get past here.
+		if (!areOffsets(upOffsets, upEdgeCount) || !areOffsets(downOffsets, downEdgeCount) || !allWithin(upEdges, 0, edgeCount)
+				|| !allWithin(downEdges, 0, edgeCount) || !allWithin(ranks, 0, nodeCount) || !allWithin(edgeOrigins, 0, nodeCount)
+				|| !allWithin(edgeTargets, 0, nodeCount) || !allWithin(originalEdges, -1, graphEdgeCount)
+				|| !allWithin(firstHalves, -1, edgeCount) || !allWithin(secondHalves, -1, edgeCount))
+			throw corrupt();
+
+		return new ContractionHierarchy(graph, ranks, upOffsets, upEdges, downOffsets, downEdges, edgeOrigins, edgeTargets, edgeWeights,
+				originalEdges, firstHalves, secondHalves);
+	}
+
+	private static IOException corrupt() {
+		return new IOException("You are trying to read a contraction hierarchy whose data is corrupt. Please, check it out.");
+	}
+
+	// Offsets start at 0, never go down and end with the number of values they point into.
+	private static boolean areOffsets(int[] offsets, int valueCount) {
+
+		if (offsets[0] != 0 || offsets[offsets.length - 1] != valueCount)
+			return false;
+
+		for (int i = 1; i < offsets.length; i++) {
+			if (offsets[i] < offsets[i - 1])
+				return false;
+		}
+
+		return true;
+	}
+
+	// Every value is at least from and below to.
+	private static boolean allWithin(int[] values, int from, int to) {
+
+		for (int value : values) {
+			if (value < from || value >= to)
+				return false;
+		}
+
+		return true;
+	}
+
+	// Sections are read in chunks rather than value by value, as the stream is not buffered.
+	private static int[] readInts(DataInputStream in, int count) throws IOException {
+		int[] values = new int[count];
+		byte[] chunk = new byte[(int) Math.min(READ_CHUNK_BYTES, 4L * count)];
+
+		for (int i = 0; i < count;) {
+			int read = Math.min(chunk.length / 4, count - i);
+
+			in.readFully(chunk, 0, 4 * read);
+			ByteBuffer.wrap(chunk, 0, 4 * read).asIntBuffer().get(values, i, read);
+			i += read;
+		}
+
+		return values;
+	}
+
+	private static double[] readDoubles(DataInputStream in, int count) throws IOException {
+		double[] values = new double[count];
+		byte[] chunk = new byte[(int) Math.min(READ_CHUNK_BYTES, 8L * count)];
+
+		for (int i = 0; i < count;) {
+			int read = Math.min(chunk.length / 8, count - i);
+
+			in.readFully(chunk, 0, 8 * read);
+			ByteBuffer.wrap(chunk, 0, 8 * read).asDoubleBuffer().get(values, i, read);
+			i += read;
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,6 @@
+package improvedgraph;
+
+enum Direction {
+	SOUTH
+
+}
\ No newline at end of file
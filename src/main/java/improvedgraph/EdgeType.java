@@ -0,0 +1,6 @@
+package improvedgraph;
+
+enum EdgeType {
+	AVE, LANE, STREET
+	
+}
\ No newline at end of file
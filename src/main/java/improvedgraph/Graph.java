@@ -1,18 +1,23 @@
 package improvedgraph;
 
-import java.util.ArrayDeque;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.Queue;
+import java.util.List;
 import java.util.Set;
 
+import improvedgraph.util.CoordinateIndex;
 import improvedgraph.util.DequeStack;
+import improvedgraph.util.SpatialIndex;
 import improvedgraph.util.Stack;
 
 public class Graph {
 
-	private Set<GraphNode> nodes;
+	private List<GraphNode> nodesById;
+	private CoordinateIndex ids;
+	private final ThreadLocal<SearchWorkspace> workspaces = new ThreadLocal<>();
+	private SpatialIndex spatialIndex;
+	private TraversalListener listener;
+	private QueryMetrics metrics;
 
 	public Graph(Set<GraphNode> nodeSet) {
 
@@ -21,11 +26,85 @@ public class Graph {
 					"You are trying to create a graph with " + (nodeSet == null ? "a null" : "an empty")
 							+ " set of nodes. There is no graph without nodes and so, at least one node is required.");
 
-		this.nodes = nodeSet;
+		this.nodesById = new ArrayList<>(nodeSet.size());
+		this.ids = new CoordinateIndex(nodeSet.size());
+		nodeSet.forEach(this::index);
 	}
 
 	public Set<GraphNode> nodes() {
-		return new HashSet<>(nodes);
+		return new HashSet<>(nodesById);
+	}
+
+	public int nodeCount() {
+		return nodesById.size();
+	}
+
+	public int idOf(GraphNode node) {
+		return node == null ? -1 : ids.get(node.xCoordinate(), node.yCoordinate());
+	}
+
+	public int idOf(double xCoordinate, double yCoordinate) {
+		return ids.get(xCoordinate, yCoordinate);
+	}
+
+	public GraphNode nodeWithId(int id) {
+		return new GraphNode(nodesById.get(id));
+	}
+
+	// The node itself rather than a copy, for code in this package that only reads it.
+	GraphNode node(int id) {
+		return nodesById.get(id);
+	}
+
+	public SpatialIndex spatialIndex() {
+
+		if (spatialIndex == null) {
+			spatialIndex = new SpatialIndex(cellSizeFor(nodesById));
+
+			for (int id = 0; id < nodesById.size(); id++) {
+				spatialIndex.add(id, nodesById.get(id).xCoordinate(), nodesById.get(id).yCoordinate());
+			}
+		}
+
+		return spatialIndex;
+	}
+
+	private static double cellSizeFor(List<GraphNode> nodes) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+
+		for (GraphNode node : nodes) {
+			minX = Math.min(minX, node.xCoordinate());
+			minY = Math.min(minY, node.yCoordinate());
+			maxX = Math.max(maxX, node.xCoordinate());
+			maxY = Math.max(maxY, node.yCoordinate());
+		}
+
+		return SpatialIndex.cellSizeFor(minX, minY, maxX, maxY, nodes.size());
+	}
+
+	public GraphNode nearestNode(double xCoordinate, double yCoordinate) {
+		return nodeWithId(spatialIndex().nearest(xCoordinate, yCoordinate));
+	}
+
+	public List<GraphNode> nearestNodes(double xCoordinate, double yCoordinate, int howMany) {
+		return nodesWithIds(spatialIndex().nearest(xCoordinate, yCoordinate, howMany));
+	}
+
+	public List<GraphNode> nodesWithin(double minX, double minY, double maxX, double maxY) {
+		return nodesWithIds(spatialIndex().within(minX, minY, maxX, maxY));
+	}
+
+	private List<GraphNode> nodesWithIds(int[] ids) {
+		List<GraphNode> nodes = new ArrayList<>(ids.length);
+
+		for (int id : ids) {
+			nodes.add(nodeWithId(id));
+		}
+
+		return nodes;
 	}
 
 	public GraphNode addNode(GraphNode node) {
@@ -34,7 +113,7 @@ public class Graph {
 			throw new IllegalArgumentException(
 					"You are trying to add a null node to the graph and that is nor allowed. Please, check it out.");
 
-		if (!nodes.add(new GraphNode(node)))
+		if (!index(new GraphNode(node)))
 			throw new IllegalArgumentException(
 					"You are trying to add a repeated node to the graph. That is not allowed.");
 
@@ -42,7 +121,7 @@ public class Graph {
 	}
 
 	public GraphNode createNodeFromCoordinates(double xCoordinate, double yCoordinate) {
-		nodes.add(new GraphNode(xCoordinate, yCoordinate));
+		index(new GraphNode(xCoordinate, yCoordinate));
 
 		return new GraphNode(xCoordinate, yCoordinate);
 	}
@@ -54,22 +133,22 @@ public class Graph {
 					+ (origin == null ? "from a null origin" : "to a null destination")
 					+ " node. Please, check it out.");
 
-		if(!nodes.contains(origin))
+		if(!contains(origin))
 			throw new IllegalArgumentException(
 					"You are trying to create an edge from an origin node that is not in the graph. Please, check it out.");
 
-		if(!nodes.contains(destination))
+		if(!contains(destination))
 			throw new IllegalArgumentException(
 					"You are trying to create an edge to a destination node that is not in the graph. Please, check it out.");
 
-		GraphNode originInGraph = nodes.stream().filter(node -> node.equals(origin)).findFirst().get();
+		GraphNode originInGraph = nodeInGraph(origin);
 
 		if (originInGraph.hasEdgeTo(destination)) {
 			throw new IllegalArgumentException(
 					"You are trying to create an edge that already exists. Multiple edges from the same origin to the same destination are not allowed in this graph.");
 		}
 
-		return new GraphEdge(originInGraph.addEdgeTo(destination));
+		return detachedCopy(originInGraph.addEdgeTo(nodeInGraph(destination)), true);
 	}
 
 	public GraphEdge removeTheEdgeBetweenTheFollowingNodes(GraphNode origin, GraphNode destination) {
@@ -79,15 +158,45 @@ public class Graph {
 					+ (origin == null ? "from a null origin" : "to a null destination")
 					+ " node. Please, check it out.");
 
-		if(!nodes.contains(origin))
+		if(!contains(origin))
 			throw new IllegalArgumentException(
 					"You are trying to remove an edge from an origin node that is not in the graph. Please, check it out.");
 
-		if(!nodes.contains(destination))
+		if(!contains(destination))
 			throw new IllegalArgumentException(
 					"You are trying to remove an edge to a destination node that is not in the graph. Please, check it out.");
 
-		return new GraphEdge(nodes.stream().filter(node -> node.equals(origin)).findFirst().get().removeEdgeTo(destination));
+		return detachedCopy(nodeInGraph(origin).removeEdgeTo(destination), false);
+	}
+
+	// Copying the ends of an edge whole would copy every edge of its origin, and make creating or removing an edge
+	// as slow as the degree of the origin. The copied origin only tells whether the edge is still in it.
+	private static GraphEdge detachedCopy(GraphEdge edge, boolean stillInOrigin) {
+		GraphNode origin = new GraphNode(edge.origin().xCoordinate(), edge.origin().yCoordinate());
+		GraphNode destination = new GraphNode(edge.destination().xCoordinate(), edge.destination().yCoordinate());
+
+		return stillInOrigin ? origin.addEdgeTo(destination) : new GraphEdge(origin, destination);
+	}
+
+	// Puts back, attributes and all, an edge taken from this graph.
+	void restoreEdge(GraphEdge edge) {
+
+		if (!contains(edge.origin()) || !contains(edge.destination()) || !nodeInGraph(edge.origin()).edges().add(edge))
+			throw new IllegalArgumentException("You are trying to restore an edge that does not fit the graph any more. Please, check it out.");
+	}
+
+	public CompactGraph freeze() {
+		return CompactGraph.freeze(nodesById, ids);
+	}
+
+	// Reports every navigation to the listener, until it is set back to null.
+	public void listener(TraversalListener listener) {
+		this.listener = listener;
+	}
+
+	// Records every navigation, until it is set back to null.
+	public void metrics(QueryMetrics metrics) {
+		this.metrics = metrics;
 	}
 
 	public Stack<GraphEdge> navigate(GraphNode origin, GraphNode destination) {
@@ -95,53 +204,133 @@ public class Graph {
 		if(origin == null || destination == null)
 			throw new IllegalArgumentException("You are trying to navigate " + (origin == null ? "from a null origin" : "to a null destination") + ". Please, check it out.");
 		
-		if(!nodes.contains(origin))
+		if(!contains(origin))
 			throw new IllegalArgumentException("You are trying to navigate from an origin that is not in the graph. Please, check it out.");
 		
-		if(!nodes.contains(destination))
+		if(!contains(destination))
 			throw new IllegalArgumentException("You are trying to navigate to a destination that is not in the graph. Please, check it out.");
 		
-		Queue<GraphNode> scheduler = new ArrayDeque<>();
-		Set<GraphNode> visits = new HashSet<>();
-		Map<GraphNode, GraphNode> tracker = new HashMap<>();
+		QueryMetrics metrics = this.metrics;
+		SearchWorkspace search = workspace();
+
+		if (metrics == null)
+			return search(idOf(origin), idOf(destination), search);
+
+		long started = System.nanoTime();
+		Stack<GraphEdge> shortestPath = search(idOf(origin), idOf(destination), search);
+
+		metrics.record(System.nanoTime() - started, search.nodesSettled, search.edgesRelaxed, shortestPath.size(), !shortestPath.isEmpty() || origin.equals(destination));
+
+		return shortestPath;
+	}
+
+	private Stack<GraphEdge> search(int start, int goal, SearchWorkspace search) {
 		Stack<GraphEdge> shortestPath = new DequeStack<>();
-		GraphNode currentNode;
-		
-		scheduler.add(origin);
+		TraversalListener listener = this.listener;
+
+		if (listener != null)
+			listener.nodeDiscovered(start);
+
+		if (start == goal)
+			return finished(listener, true, shortestPath);
+
+		int epoch = search.epoch;
+		int[] discovered = search.forwardStamps;
+		int[] tracker = search.parent;
+		int[] scheduler = search.forwardScheduler;
+		int head = 0;
+		int tail = 0;
+
+		scheduler[tail++] = start;
+		discovered[start] = epoch;
 		
-		while (!scheduler.isEmpty()) {
-			currentNode = scheduler.remove();
-//			explorer.nodeVisited(currentNode); // NOSONAR
+		while (head < tail) {
+			int currentId = scheduler[head++];
+			GraphNode currentNode = nodesById.get(currentId);
+
+			search.nodesSettled++;
+
+			if (listener != null)
+				listener.nodeSettled(currentId);
 			
 			for (GraphEdge edge : currentNode.edges()) {				
-				GraphNode outNeighbor = edge.traverseFrom(currentNode);
+				GraphNode neighbor = edge.traverseFrom(currentNode);
+				int outNeighbor = ids.get(neighbor.xCoordinate(), neighbor.yCoordinate());
 				
-				if(!visits.contains(outNeighbor) && !scheduler.contains(outNeighbor)) {
-//					explorer.nodeVisited(currentNode); // NOSONAR
-					tracker.put(outNeighbor, currentNode);
+				// Nodes are marked when they are scheduled, so a single stamp check tells
+				// whether they were ever seen instead of scanning the scheduler. Edges
+				// leading to nodes outside the graph cannot be part of a journey.
+				if(outNeighbor != -1 && discovered[outNeighbor] != epoch) {
+					discovered[outNeighbor] = epoch;
+					tracker[outNeighbor] = currentId;
+					search.edgesRelaxed++;
+
+					if (listener != null) {
+						listener.edgeRelaxed(currentId, outNeighbor, Double.NaN);
+						listener.nodeDiscovered(outNeighbor);
+					}
 					
-					if(outNeighbor.equals(destination)) {
-//						explorer.endOfJourney(); // NOSONAR
-						GraphNode previousNodeInJourney = tracker.get(outNeighbor);
+					if(outNeighbor == goal) {
 						shortestPath.push(edge);
 						
-						while(previousNodeInJourney != origin) {
-							shortestPath.push(tracker.get(previousNodeInJourney).getEdgeTo(previousNodeInJourney));
-							previousNodeInJourney = tracker.get(previousNodeInJourney);
+						for (int previousNodeInJourney = currentId; previousNodeInJourney != start; previousNodeInJourney = tracker[previousNodeInJourney]) {
+							shortestPath.push(nodesById.get(tracker[previousNodeInJourney]).getEdgeTo(nodesById.get(previousNodeInJourney)));
 						}
 						
-						return shortestPath;
+						return finished(listener, true, shortestPath);
 						
 					} else {
-						scheduler.add(outNeighbor);
+						scheduler[tail++] = outNeighbor;
 					}
 					
 				}
 			}
-			
-			visits.add(currentNode);
 		}
 		
+		return finished(listener, false, shortestPath);
+	}
+
+	private static Stack<GraphEdge> finished(TraversalListener listener, boolean pathFound, Stack<GraphEdge> shortestPath) {
+
+		if (listener != null)
+			listener.searchFinished(pathFound);
+
 		return shortestPath;
 	}
-}
\ No newline at end of file
+
+	// Navigation only reads the graph, so each thread searches with a workspace of its own.
+	private SearchWorkspace workspace() {
+		SearchWorkspace workspace = workspaces.get();
+
+		if (workspace == null || workspace.capacity() < nodesById.size()) {
+			workspace = new SearchWorkspace(Math.max(16, nodesById.size() * 2));
+			workspaces.set(workspace);
+		}
+
+		workspace.beginSearch(nodesById.size());
+		workspace.prepareForwardSearch();
+
+		return workspace;
+	}
+
+	private boolean index(GraphNode node) {
+
+		if (ids.putIfAbsent(node.xCoordinate(), node.yCoordinate(), nodesById.size()) != -1)
+			return false;
+
+		if (spatialIndex != null)
+			spatialIndex.add(nodesById.size(), node.xCoordinate(), node.yCoordinate());
+
+		nodesById.add(node);
+
+		return true;
+	}
+
+	private boolean contains(GraphNode node) {
+		return idOf(node) != -1;
+	}
+
+	private GraphNode nodeInGraph(GraphNode node) {
+		return nodesById.get(idOf(node));
+	}
+}
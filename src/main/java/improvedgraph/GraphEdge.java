@@ -122,14 +122,4 @@ public class GraphEdge {
 		return otherSide;
 	}
 
-}
-
-enum EdgeType {
-	AVE, LANE, STREET
-	
-}
-
-enum Direction {
-	SOUTH
-
 }
\ No newline at end of file
@@ -0,0 +1,597 @@
+package improvedgraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import improvedgraph.util.CoordinateIndex;
+
+/**
+ * Builds a {@link CompactGraph} straight from large edge-list files. Lines are
+ * parsed in place in the read buffer, without splitting them into strings,
+ * nodes are deduplicated by their coordinates as they are met, and the rows
+ * are laid out with a counting sort once the whole file has been read.
+ * Of any edges repeated between the same two nodes, the edge-list format keeps
+ * the first one read and the DIMACS format the cheapest one.
+ */
+public final class GraphLoader {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+	private static final byte NO_TYPE = -1;
+	private static final int NO_LABEL = -1;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private GraphLoader() {
+	}
+
+	/*
+	 * Reads lines laid out like the map files, and like GraphWriter.writeEdgeList
+	 * writes them: "x1,y1,x2,y2,type,label" followed by an optional weight, which
+	 * defaults to 1.0. Types other than Ave and Lane are streets, and an empty
+	 * type or label stands for none.
+	 */
+	public static CompactGraph loadEdgeList(Path path) throws IOException {
+		EdgeRows rows = new EdgeRows();
+		Labels labels = new Labels();
+
+		forEachLine(path, line -> {
+			int origin = rows.node(line.nextDouble(','), line.nextDouble(','));
+			int destination = rows.node(line.nextDouble(','), line.nextDouble(','));
+			byte type = typeOf(line);
+			int label = labels.idOf(line);
+
+			rows.edge(origin, destination, line.atEnd() ? 1.0 : line.nextDouble(','), type, label);
+
+			if (!line.atEnd())
+				throw line.invalid();
+		});
+
+		return rows.compact(labels.toArray(), false);
+	}
+
+	/*
+	 * Reads the DIMACS shortest-path challenge format: a coordinate file with
+	 * "v id x y" lines and an arc file with "a origin destination weight" lines.
+	 * Ids start at 1, and vertices sharing coordinates become a single node.
+	 * Of any arcs repeated between the same two nodes, only the cheapest is kept.
+	 */
+	public static CompactGraph loadDimacs(Path coordinates, Path arcs) throws IOException {
+		EdgeRows rows = new EdgeRows();
+		int[][] nodes = { new int[1024] };
+
+		forEachLine(coordinates, line -> {
+			if (line.startsWith('v')) {
+				int vertex = line.nextInt(' ');
+				int node = rows.node(line.nextDouble(' '), line.nextDouble(' '));
+
+				if (vertex < 1 || !line.atEnd())
+					throw line.invalid();
+
+				if (vertex >= nodes[0].length)
+					nodes[0] = Arrays.copyOf(nodes[0], Math.max(vertex + 1, nodes[0].length * 2));
+
+				nodes[0][vertex] = node + 1;
+			}
+		});
+
+		forEachLine(arcs, line -> {
+			if (line.startsWith('a')) {
+				int origin = line.nextInt(' ');
+				int destination = line.nextInt(' ');
+				double weight = line.nextDouble(' ');
+
+				if (origin < 1 || origin >= nodes[0].length || nodes[0][origin] == 0 || destination < 1
+						|| destination >= nodes[0].length || nodes[0][destination] == 0 || !line.atEnd())
+					throw line.invalid();
+
+				rows.edge(nodes[0][origin] - 1, nodes[0][destination] - 1, weight, NO_TYPE, NO_LABEL);
+			}
+		});
+
+		return rows.compact(new String[0], true);
+	}
+
+	private static byte typeOf(Line line) {
+		int from = line.fieldStart(',');
+		int to = line.fieldEnd();
+
+		if (from == to)
+			return NO_TYPE;
+
+		if (line.fieldEquals(from, to, "Ave"))
+			return (byte) EdgeType.AVE.ordinal();
+
+		return (byte) (line.fieldEquals(from, to, "Lane") ? EdgeType.LANE : EdgeType.STREET).ordinal();
+	}
+
+	private interface LineHandler {
+
+		void handle(Line line);
+	}
+
+	private static void forEachLine(Path path, LineHandler handler) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			Line line = new Line(path);
+			long number = 0;
+			boolean endOfFile = false;
+
+			while (!endOfFile) {
+				endOfFile = channel.read(buffer) == -1;
+
+				byte[] bytes = buffer.array();
+				int end = buffer.position();
+				int start = 0;
+
+				for (int i = 0; i < end; i++) {
+					if (bytes[i] == '\n') {
+						handle(line.of(bytes, start, i, ++number), handler);
+						start = i + 1;
+					}
+				}
+
+				if (endOfFile) {
+					if (start < end)
+						handle(line.of(bytes, start, end, ++number), handler);
+
+				} else if (start == 0 && end == bytes.length) {
+					buffer = ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length * 2));
+					buffer.position(end);
+
+				} else {
+					System.arraycopy(bytes, start, bytes, 0, end - start);
+					buffer.position(end - start);
+				}
+			}
+		}
+	}
+
+	private static void handle(Line line, LineHandler handler) {
+
+		if (!line.isBlank())
+			handler.handle(line);
+	}
+
+	// A cursor over one line of the read buffer, consuming it field by field.
+	private static final class Line {
+
+		private final Path path;
+		private byte[] bytes;
+		private int position;
+		private int end;
+		private long number;
+		private int fieldEnd;
+
+		Line(Path path) {
+			this.path = path;
+		}
+
+		Line of(byte[] bytes, int start, int end, long number) {
+			this.bytes = bytes;
+			this.position = start;
+			this.end = end > start && bytes[end - 1] == '\r' ? end - 1 : end;
+			this.number = number;
+
+			return this;
+		}
+
+		boolean isBlank() {
+			skipSpaces();
+			return position == end;
+		}
+
+		boolean atEnd() {
+			return position >= end;
+		}
+
+		boolean startsWith(char kind) {
+
+			if (bytes[position] != kind)
+				return false;
+
+			position++;
+			return true;
+		}
+
+		// Moves to the next field, returning where it starts; fieldEnd() tells where it stops.
+		int fieldStart(char delimiter) {
+
+			if (atEnd())
+				throw invalid();
+
+			if (delimiter == ' ')
+				skipSpaces();
+
+			int from = position;
+			int to = from;
+
+			while (to < end && bytes[to] != delimiter && (delimiter != ' ' || bytes[to] != '\t')) {
+				to++;
+			}
+
+			position = to + 1;
+			fieldEnd = to;
+
+			return from;
+		}
+
+		int fieldEnd() {
+			return fieldEnd;
+		}
+
+		boolean fieldEquals(int from, int to, String expected) {
+
+			if (to - from != expected.length())
+				return false;
+
+			for (int i = 0; i < expected.length(); i++) {
+				if (bytes[from + i] != expected.charAt(i))
+					return false;
+			}
+
+			return true;
+		}
+
+		int nextInt(char delimiter) {
+			double value = nextDouble(delimiter);
+
+			if (value != (int) value)
+				throw invalid();
+
+			return (int) value;
+		}
+
+		double nextDouble(char delimiter) {
+			int from = fieldStart(delimiter);
+			int to = fieldEnd;
+
+			while (from < to && bytes[from] == ' ') {
+				from++;
+			}
+
+			while (to > from && bytes[to - 1] == ' ') {
+				to--;
+			}
+
+			return parseDouble(from, to);
+		}
+
+		/*
+		 * Plain decimals with at most 18 significant digits and a power of ten the
+		 * double can hold exactly are computed with a single, correctly rounded
+		 * multiplication or division. Anything else goes through Double.parseDouble.
+		 */
+		private double parseDouble(int from, int to) {
+			int i = from;
+			boolean negative = i < to && bytes[i] == '-';
+			long mantissa = 0;
+			int digits = 0;
+			int exponent = 0;
+			boolean exact = true;
+			boolean anyDigit = false;
+
+			if (negative || (i < to && bytes[i] == '+'))
+				i++;
+
+			for (boolean fraction = false; i < to; i++) {
+				int digit = bytes[i] - '0';
+
+				if (digit >= 0 && digit <= 9) {
+					anyDigit = true;
+
+					if (digits < 18) {
+						mantissa = mantissa * 10 + digit;
+						digits += mantissa == 0 ? 0 : 1;
+						exponent -= fraction ? 1 : 0;
+
+					} else {
+						exact &= digit == 0;
+						exponent += fraction ? 0 : 1;
+					}
+
+				} else if (bytes[i] == '.' && !fraction) {
+					fraction = true;
+
+				} else {
+					break;
+				}
+			}
+
+			if (i < to && (bytes[i] == 'e' || bytes[i] == 'E') && anyDigit) {
+				int exponentSign = 1;
+				int writtenExponent = 0;
+				boolean anyExponentDigit = false;
+
+				if (++i < to && (bytes[i] == '-' || bytes[i] == '+'))
+					exponentSign = bytes[i++] == '-' ? -1 : 1;
+
+				for (; i < to && bytes[i] >= '0' && bytes[i] <= '9' && writtenExponent < 1000; i++) {
+					writtenExponent = writtenExponent * 10 + bytes[i] - '0';
+					anyExponentDigit = true;
+				}
+
+				exact &= anyExponentDigit;
+				exponent += exponentSign * writtenExponent;
+			}
+
+			if (anyDigit && exact && i == to && mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) {
+				double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+
+				return negative ? -value : value;
+			}
+
+			try {
+				return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+
+			} catch (NumberFormatException e) {
+				throw invalid();
+			}
+		}
+
+		private void skipSpaces() {
+
+			while (position < end && (bytes[position] == ' ' || bytes[position] == '\t')) {
+				position++;
+			}
+		}
+
+		IllegalArgumentException invalid() {
+			return new IllegalArgumentException("You are trying to load " + path + ", whose line " + number
+					+ " is not valid for its format. Please, check it out.");
+		}
+	}
+
+	// Gives each distinct label an id, creating its string only the first time it is met.
+	private static final class Labels {
+
+		private byte[] contents = new byte[1024];
+		private int contentsSize;
+		private int[] starts = new int[64];
+		private int[] slots = new int[64];
+		private int count;
+
+		Labels() {
+			Arrays.fill(slots, NO_LABEL);
+		}
+
+		int idOf(Line line) {
+			int from = line.fieldStart(',');
+			int to = line.fieldEnd();
+
+			if (from == to)
+				return NO_LABEL;
+
+			int hash = 1;
+
+			for (int i = from; i < to; i++) {
+				hash = 31 * hash + line.bytes[i];
+			}
+
+			int mask = slots.length - 1;
+
+			for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+				int label = slots[slot];
+
+				if (label == NO_LABEL) {
+					label = add(line.bytes, from, to);
+					slots[slot] = label;
+
+					if (count * 4 > slots.length * 3)
+						rehash();
+
+					return label;
+				}
+
+				if (sameBytes(label, line.bytes, from, to))
+					return label;
+			}
+		}
+
+		private boolean sameBytes(int label, byte[] bytes, int from, int to) {
+			int start = starts[label];
+
+			if (starts[label + 1] - start != to - from)
+				return false;
+
+			for (int i = 0; i < to - from; i++) {
+				if (contents[start + i] != bytes[from + i])
+					return false;
+			}
+
+			return true;
+		}
+
+		private int add(byte[] bytes, int from, int to) {
+
+			if (contentsSize + to - from > contents.length)
+				contents = Arrays.copyOf(contents, Math.max(contentsSize + to - from, contents.length * 2));
+
+			if (count + 2 > starts.length)
+				starts = Arrays.copyOf(starts, starts.length * 2);
+
+			System.arraycopy(bytes, from, contents, contentsSize, to - from);
+			contentsSize += to - from;
+			starts[++count] = contentsSize;
+
+			return count - 1;
+		}
+
+		private void rehash() {
+			slots = new int[slots.length * 2];
+			Arrays.fill(slots, NO_LABEL);
+
+			int mask = slots.length - 1;
+
+			for (int label = 0; label < count; label++) {
+				int hash = 1;
+
+				for (int i = starts[label]; i < starts[label + 1]; i++) {
+					hash = 31 * hash + contents[i];
+				}
+
+				int slot = hash & mask;
+
+				while (slots[slot] != NO_LABEL) {
+					slot = (slot + 1) & mask;
+				}
+
+				slots[slot] = label;
+			}
+		}
+
+		String[] toArray() {
+			String[] labels = new String[count];
+
+			for (int label = 0; label < count; label++) {
+				labels[label] = new String(contents, starts[label], starts[label + 1] - starts[label], StandardCharsets.UTF_8);
+			}
+
+			return labels;
+		}
+	}
+
+	// Edges in the order they were read, kept in parallel primitive arrays until they are laid out as rows.
+	private static final class EdgeRows {
+
+		private final CoordinateIndex ids = new CoordinateIndex();
+		private double[] xCoordinates = new double[1024];
+		private double[] yCoordinates = new double[1024];
+		private int nodeCount;
+		private int[] origins = new int[1024];
+		private int[] targets = new int[1024];
+		private double[] weights = new double[1024];
+		private byte[] types = new byte[1024];
+		private int[] labelIds = new int[1024];
+		private int edgeCount;
+
+		int node(double xCoordinate, double yCoordinate) {
+			int id = ids.putIfAbsent(xCoordinate, yCoordinate, nodeCount);
+
+			if (id != -1)
+				return id;
+
+			if (nodeCount == xCoordinates.length) {
+				xCoordinates = Arrays.copyOf(xCoordinates, nodeCount * 2);
+				yCoordinates = Arrays.copyOf(yCoordinates, nodeCount * 2);
+			}
+
+			xCoordinates[nodeCount] = xCoordinate;
+			yCoordinates[nodeCount] = yCoordinate;
+
+			return nodeCount++;
+		}
+
+		void edge(int origin, int target, double weight, byte type, int labelId) {
+
+			if (edgeCount == origins.length) {
+				int capacity = edgeCount * 2;
+
+				origins = Arrays.copyOf(origins, capacity);
+				targets = Arrays.copyOf(targets, capacity);
+				weights = Arrays.copyOf(weights, capacity);
+				types = Arrays.copyOf(types, capacity);
+				labelIds = Arrays.copyOf(labelIds, capacity);
+			}
+
+			origins[edgeCount] = origin;
+			targets[edgeCount] = target;
+			weights[edgeCount] = weight;
+			types[edgeCount] = type;
+			labelIds[edgeCount] = labelId;
+			edgeCount++;
+		}
+
+		// Repeated edges keep the first one read, or the cheapest one when asked to.
+		CompactGraph compact(String[] labels, boolean keepCheapest) {
+			int[] offsets = new int[nodeCount + 1];
+			int[] order = new int[edgeCount];
+
+			for (int edge = 0; edge < edgeCount; edge++) {
+				offsets[origins[edge] + 1]++;
+			}
+
+			for (int id = 0; id < nodeCount; id++) {
+				offsets[id + 1] += offsets[id];
+			}
+
+			int[] cursors = Arrays.copyOf(offsets, nodeCount);
+
+			for (int edge = 0; edge < edgeCount; edge++) {
+				order[cursors[origins[edge]]++] = edge;
+			}
+
+			origins = null;
+
+			int[] rowTargets = new int[edgeCount];
+			double[] rowWeights = new double[edgeCount];
+			byte[] rowTypes = new byte[edgeCount];
+			int[] rowLabelIds = new int[edgeCount];
+			long[] row = new long[16];
+			int slot = 0;
+
+			for (int id = 0; id < nodeCount; id++) {
+				int degree = offsets[id + 1] - offsets[id];
+
+				if (degree > row.length)
+					row = new long[Math.max(degree, row.length * 2)];
+
+				// Sorting by target and then by reading order puts the first of any repeated edges ahead of the rest.
+				for (int i = 0; i < degree; i++) {
+					int edge = order[offsets[id] + i];
+
+					row[i] = ((long) targets[edge] << 32) | (offsets[id] + i);
+				}
+
+				Arrays.sort(row, 0, degree);
+				offsets[id] = slot;
+
+				for (int i = 0; i < degree; i++) {
+					int target = (int) (row[i] >>> 32);
+					int edge = order[(int) row[i]];
+
+					if (i > 0 && target == (int) (row[i - 1] >>> 32)) {
+
+						if (keepCheapest && weights[edge] < rowWeights[slot - 1]) {
+							rowWeights[slot - 1] = weights[edge];
+							rowTypes[slot - 1] = types[edge];
+							rowLabelIds[slot - 1] = labelIds[edge];
+						}
+
+						continue;
+					}
+
+					rowTargets[slot] = target;
+					rowWeights[slot] = weights[edge];
+					rowTypes[slot] = types[edge];
+					rowLabelIds[slot] = labelIds[edge];
+					slot++;
+				}
+			}
+
+			offsets[nodeCount] = slot;
+
+			return new CompactGraph(trimmed(xCoordinates, nodeCount), trimmed(yCoordinates, nodeCount), offsets,
+					trimmed(rowTargets, slot), trimmed(rowWeights, slot), trimmed(rowTypes, slot),
+					trimmed(rowLabelIds, slot), labels, ids);
+		}
+
+		// Arrays that are already full are handed over as they are, rather than copied.
+		private static double[] trimmed(double[] array, int length) {
+			return array.length == length ? array : Arrays.copyOf(array, length);
+		}
+
+		private static int[] trimmed(int[] array, int length) {
+			return array.length == length ? array : Arrays.copyOf(array, length);
+		}
+
+		private static byte[] trimmed(byte[] array, int length) {
+			return array.length == length ? array : Arrays.copyOf(array, length);
+		}
+	}
+}
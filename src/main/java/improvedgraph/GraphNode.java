@@ -1,13 +1,19 @@
 package improvedgraph;
 
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class GraphNode {
 
 	private double xCoordinate;
 	private double yCoordinate;
-	private Set<GraphEdge> edges = new HashSet<>();
+	// Keyed by destination, so that finding, adding or removing the edge to a node is a single hash lookup.
+	private Map<GraphNode, GraphEdge> edgesByDestination = new LinkedHashMap<>();
+	private final Set<GraphEdge> edges = new Edges();
 
 	public GraphNode(double xCoordinate, double yCoordinate) {
 		this.xCoordinate = xCoordinate;
@@ -17,7 +23,7 @@ public class GraphNode {
 	public GraphNode(GraphNode toBeCopied) {
 		this.xCoordinate = toBeCopied.xCoordinate;
 		this.yCoordinate = toBeCopied.yCoordinate;
-		this.edges = new HashSet<>(toBeCopied.edges);
+		this.edgesByDestination = new LinkedHashMap<>(toBeCopied.edgesByDestination);
 	}
 
 	public double xCoordinate() {
@@ -41,7 +47,7 @@ public class GraphNode {
 
 		GraphEdge edge = new GraphEdge(this, destination);
 		
-		if (!edges.add(edge)) {
+		if (edgesByDestination.putIfAbsent(destination, edge) != null) {
 			throw new IllegalArgumentException(
 					"You are trying to add an edge to a node that is already connected with this node. Multiple edges are no allowed.");
 		}
@@ -51,11 +57,17 @@ public class GraphNode {
 	}
 
 	public boolean hasEdgeTo(GraphNode destination) {
-		return edges.stream().anyMatch(edge -> edge.destination().equals(destination));
+		return edgesByDestination.containsKey(destination);
 	}
 
 	public GraphEdge getEdgeTo(GraphNode destination) {
-		return edges.stream().filter(edge -> edge.destination().equals(destination)).findAny().get();
+		GraphEdge edge = edgesByDestination.get(destination);
+
+		if (edge == null) {
+			throw new NoSuchElementException("You are trying to get an inexistent edge. Please, check it out.");
+		}
+
+		return edge;
 	}
 
 	public GraphEdge removeEdgeTo(GraphNode destination) {
@@ -64,15 +76,49 @@ public class GraphNode {
 			throw new IllegalArgumentException("You are trying to remove an edge to a null node. That is not allowed as null nodes simply doesn't exist.");
 		}
 
-		GraphEdge edge = new GraphEdge(this, destination);
+		GraphEdge edge = edgesByDestination.remove(destination);
 		
-		if (!edges.remove(edge)) {
+		if (edge == null) {
 			throw new IllegalArgumentException("You are trying to remove an inexistent edge. That is impossible!");
 		}
 
 		return edge;
 	}
 
+	// The edges as a set, backed by the map so that changes made through either show in both.
+	private final class Edges extends AbstractSet<GraphEdge> {
+
+		@Override
+		public Iterator<GraphEdge> iterator() {
+			return edgesByDestination.values().iterator();
+		}
+
+		@Override
+		public int size() {
+			return edgesByDestination.size();
+		}
+
+		@Override
+		public boolean contains(Object object) {
+			return object instanceof GraphEdge && object.equals(edgesByDestination.get(((GraphEdge) object).destination()));
+		}
+
+		@Override
+		public boolean add(GraphEdge edge) {
+
+			if (!GraphNode.this.equals(edge.origin())) {
+				throw new IllegalArgumentException("You are trying to add to a node an edge that starts at another node. Please, check it out.");
+			}
+
+			return edgesByDestination.putIfAbsent(edge.destination(), edge) == null;
+		}
+
+		@Override
+		public boolean remove(Object object) {
+			return contains(object) && edgesByDestination.remove(((GraphEdge) object).destination()) != null;
+		}
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
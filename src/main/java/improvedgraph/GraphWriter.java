@@ -0,0 +1,273 @@
+package improvedgraph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams a graph out node by node, so the output can be as large as the graph
+ * without ever being held in memory. Only the binary layout needs a frozen
+ * graph, so writing a {@link Graph} in it freezes a copy first.
+ * The given writer or stream is flushed but left open.
+ */
+public final class GraphWriter {
+
+	public static final int BINARY_MAGIC = 0x47525048;
+	public static final int BINARY_VERSION = 2;
+	public static final int BINARY_HEADER_BYTES = 32;
+
+	// Set in the flags of the header when any edge weighs less than zero.
+	public static final int NEGATIVE_WEIGHTS = 1;
+
+	private GraphWriter() {
+	}
+
+	// One "x1,y1,x2,y2,type,label,weight" line per edge, the same layout the map files use.
+	public static void writeEdgeList(Graph graph, Writer writer) throws IOException {
+		Writer out = new BufferedWriter(writer);
+
+		for (int id = 0; id < graph.nodeCount(); id++) {
+			GraphNode origin = graph.node(id);
+
+			for (GraphEdge edge : origin.edges()) {
+				GraphNode destination = edge.destination();
+
+				writeEdgeLine(out, origin.xCoordinate(), origin.yCoordinate(), destination.xCoordinate(),
+						destination.yCoordinate(), edge.type(), edge.label(), edge.weight());
+			}
+		}
+
+		out.flush();
+	}
+
+	public static void writeEdgeList(CompactGraph graph, Writer writer) throws IOException {
+		Writer out = new BufferedWriter(writer);
+
+		for (int origin = 0; origin < graph.nodeCount(); origin++) {
+			for (int edge = graph.edgesBegin(origin); edge < graph.edgesEnd(origin); edge++) {
+				int destination = graph.edgeTarget(edge);
+
+				writeEdgeLine(out, graph.xCoordinate(origin), graph.yCoordinate(origin), graph.xCoordinate(destination),
+						graph.yCoordinate(destination), graph.edgeType(edge), graph.edgeLabel(edge), graph.edgeWeight(edge));
+			}
+		}
+
+		out.flush();
+	}
+
+	private static void writeEdgeLine(Writer out, double originX, double originY, double destinationX,
+			double destinationY, EdgeType type, String label, double weight) throws IOException {
+
+		out.write(originX + "," + originY + "," + destinationX + "," + destinationY + ","
+				+ (type == null ? "" : typeName(type)) + "," + (label == null ? "" : label) + "," + weight + "\n");
+	}
+
+	private static String typeName(EdgeType type) {
+		String name = type.name();
+
+		return name.charAt(0) + name.substring(1).toLowerCase();
+	}
+
+	// Nodes are named by id and pinned to their coordinates.
+	public static void writeDot(Graph graph, Writer writer) throws IOException {
+		Writer out = new BufferedWriter(writer);
+
+		out.write("digraph G {\n");
+
+		for (int id = 0; id < graph.nodeCount(); id++) {
+			writeDotNode(out, id, graph.node(id).xCoordinate(), graph.node(id).yCoordinate());
+		}
+
+		for (int origin = 0; origin < graph.nodeCount(); origin++) {
+			for (GraphEdge edge : graph.node(origin).edges()) {
+				int destination = graph.idOf(edge.destination());
+
+				if (destination == -1)
+					throw new IllegalStateException("The edge " + edge
+							+ " leads to a node that is not in the graph and so it cannot be written.");
+
+				writeDotEdge(out, origin, destination, edge.weight(), edge.label());
+			}
+		}
+
+		out.write("}\n");
+		out.flush();
+	}
+
+	public static void writeDot(CompactGraph graph, Writer writer) throws IOException {
+		Writer out = new BufferedWriter(writer);
+
+		out.write("digraph G {\n");
+
+		for (int id = 0; id < graph.nodeCount(); id++) {
+			writeDotNode(out, id, graph.xCoordinate(id), graph.yCoordinate(id));
+		}
+
+		for (int origin = 0; origin < graph.nodeCount(); origin++) {
+			for (int edge = graph.edgesBegin(origin); edge < graph.edgesEnd(origin); edge++) {
+				writeDotEdge(out, origin, graph.edgeTarget(edge), graph.edgeWeight(edge), graph.edgeLabel(edge));
+			}
+		}
+
+		out.write("}\n");
+		out.flush();
+	}
+
+	private static void writeDotNode(Writer out, int id, double xCoordinate, double yCoordinate) throws IOException {
+		out.write("\t" + id + " [pos=\"" + xCoordinate + "," + yCoordinate + "!\"];\n");
+	}
+
+	private static void writeDotEdge(Writer out, int origin, int destination, double weight, String label) throws IOException {
+		out.write("\t" + origin + " -> " + destination + " [weight=" + weight
+				+ (label == null ? "" : ", label=\"" + label.replace("\\", "\\\\").replace("\"", "\\\"") + "\"") + "];\n");
+	}
+
+	// The layout is that of a frozen graph, so this first pays for an O(V + E) copy of the graph by freezing it.
+	public static void writeBinary(Graph graph, OutputStream stream) throws IOException {
+		writeBinary(graph.freeze(), stream);
+	}
+
+	/*
+	 * Everything is little-endian, so that the mapped sections of an opened graph
+	 * are read in the native order of the usual machines. The header holds eight ints: the magic number,
+	 * the format version, the node count N, the edge count E, the number of
+	 * distinct labels L, the size in bytes B of all labels encoded as UTF-8, the
+	 * flags and a reserved zero. Then come, in this order, so that every section is
+	 * aligned to the size of its elements:
+	 *
+	 *   doubles  x coordinates [N], y coordinates [N], edge weights [E]
+	 *   ints     out offsets [N + 1], edge targets [E],
+	 *            in offsets [N + 1], in origins [E], in edges [E],
+	 *            edge labels [E] (-1 for none), label offsets [L + 1]
+	 *   bytes    edge types [E] (-1 for none), labels [B]
+	 */
+	public static void writeBinary(CompactGraph graph, OutputStream stream) throws IOException {
+		LittleEndianOutput out = new LittleEndianOutput(stream);
+		int nodeCount = graph.nodeCount();
+		int edgeCount = graph.edgeCount();
+		byte[][] labels = new byte[graph.labelCount()][];
+		int labelBytes = 0;
+
+		for (int label = 0; label < labels.length; label++) {
+			labels[label] = graph.label(label).getBytes(StandardCharsets.UTF_8);
+			labelBytes += labels[label].length;
+		}
+
+		out.writeInt(BINARY_MAGIC);
+		out.writeInt(BINARY_VERSION);
+		out.writeInt(nodeCount);
+		out.writeInt(edgeCount);
+		out.writeInt(labels.length);
+		out.writeInt(labelBytes);
+		out.writeInt(graph.hasNegativeWeights() ? NEGATIVE_WEIGHTS : 0);
+		out.writeInt(0);
+
+		for (int id = 0; id < nodeCount; id++) {
+			out.writeDouble(graph.xCoordinate(id));
+		}
+
+		for (int id = 0; id < nodeCount; id++) {
+			out.writeDouble(graph.yCoordinate(id));
+		}
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			out.writeDouble(graph.edgeWeight(edge));
+		}
+
+		for (int id = 0; id < nodeCount; id++) {
+			out.writeInt(graph.edgesBegin(id));
+		}
+
+		out.writeInt(edgeCount);
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			out.writeInt(graph.edgeTarget(edge));
+		}
+
+		for (int id = 0; id < nodeCount; id++) {
+			out.writeInt(graph.inEdgesBegin(id));
+		}
+
+		out.writeInt(edgeCount);
+
+		for (int slot = 0; slot < edgeCount; slot++) {
+			out.writeInt(graph.inEdgeOrigin(slot));
+		}
+
+		for (int slot = 0; slot < edgeCount; slot++) {
+			out.writeInt(graph.inEdge(slot));
+		}
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			out.writeInt(graph.edgeLabelId(edge));
+		}
+
+		for (int label = 0, offset = 0; label <= labels.length; label++) {
+			out.writeInt(offset);
+
+			if (label < labels.length)
+				offset += labels[label].length;
+		}
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			EdgeType type = graph.edgeType(edge);
+
+			out.writeByte(type == null ? -1 : type.ordinal());
+		}
+
+		for (byte[] label : labels) {
+			out.write(label);
+		}
+
+		out.flush();
+	}
+
+	private static final class LittleEndianOutput {
+
+		private final ByteBuffer buffer = ByteBuffer.allocate(8192).order(ByteOrder.LITTLE_ENDIAN);
+		private final OutputStream stream;
+
+		LittleEndianOutput(OutputStream stream) {
+			this.stream = stream;
+		}
+
+		void writeInt(int value) throws IOException {
+			room(4).putInt(value);
+		}
+
+		void writeDouble(double value) throws IOException {
+			room(8).putDouble(value);
+		}
+
+		void writeByte(int value) throws IOException {
+			room(1).put((byte) value);
+		}
+
+		void write(byte[] bytes) throws IOException {
+			drain();
+			stream.write(bytes);
+		}
+
+		void flush() throws IOException {
+			drain();
+			stream.flush();
+		}
+
+		private ByteBuffer room(int size) throws IOException {
+
+			if (buffer.remaining() < size)
+				drain();
+
+			return buffer;
+		}
+
+		private void drain() throws IOException {
+			stream.write(buffer.array(), 0, buffer.position());
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,187 @@
+package improvedgraph;
+
+import java.util.Arrays;
+
+import improvedgraph.util.IndexedMinHeap;
+
+// Bidirectional Dijkstra over a contraction hierarchy. The forward search only
+// climbs to higher ranked nodes along out-edges and the backward search only
+// climbs along in-edges, so both stay within the few nodes above their end. A
+// side stops once the cheapest node it has left costs no less than the best
+// journey found through a node both sides settled.
+final class HierarchySearch {
+
+	private HierarchySearch() {
+	}
+
+	static boolean run(ContractionHierarchy hierarchy, int origin, int destination, SearchWorkspace workspace) {
+		CompactGraph graph = hierarchy.graph();
+
+		workspace.beginSearch(graph.nodeCount());
+		workspace.prepareHierarchySearch();
+
+		int epoch = workspace.epoch;
+		int[] forwardReached = workspace.forwardStamps;
+		int[] backwardReached = workspace.backwardStamps;
+		double[] forwardDistances = workspace.distances;
+		double[] backwardDistances = workspace.backwardDistances;
+		int[] parent = workspace.parent;
+		int[] parentEdge = workspace.parentEdge;
+		int[] child = workspace.child;
+		int[] childEdge = workspace.childEdge;
+		IndexedMinHeap forwardFrontier = workspace.frontier;
+		IndexedMinHeap backwardFrontier = workspace.backwardFrontier;
+		TraversalListener listener = workspace.listener;
+		double shortestJourney = Double.POSITIVE_INFINITY;
+		int meetingNode = -1;
+		int settled = 0;
+		int relaxed = 0;
+
+		if (listener != null) {
+			listener.nodeDiscovered(origin);
+
+			if (origin != destination)
+				listener.nodeDiscovered(destination);
+		}
+
+		forwardReached[origin] = epoch;
+		forwardDistances[origin] = 0.0;
+		forwardFrontier.insert(origin, 0.0);
+		backwardReached[destination] = epoch;
+		backwardDistances[destination] = 0.0;
+		backwardFrontier.insert(destination, 0.0);
+
+		while (true) {
+			double forwardMinimum = forwardFrontier.isEmpty() ? Double.POSITIVE_INFINITY : forwardFrontier.keyOf(forwardFrontier.peekMin());
+			double backwardMinimum = backwardFrontier.isEmpty() ? Double.POSITIVE_INFINITY : backwardFrontier.keyOf(backwardFrontier.peekMin());
+
+			if (Math.min(forwardMinimum, backwardMinimum) >= shortestJourney)
+				break;
+
+			settled++;
+
+			if (forwardMinimum <= backwardMinimum) {
+				int currentNode = forwardFrontier.removeMin();
+
+				if (listener != null)
+					listener.nodeSettled(currentNode);
+
+				if (backwardReached[currentNode] == epoch && forwardDistances[currentNode] + backwardDistances[currentNode] < shortestJourney) {
+					shortestJourney = forwardDistances[currentNode] + backwardDistances[currentNode];
+					meetingNode = currentNode;
+				}
+
+				for (int slot = hierarchy.upEdgesBegin(currentNode); slot < hierarchy.upEdgesEnd(currentNode); slot++) {
+					int edge = hierarchy.upEdge(slot);
+					int outNeighbor = hierarchy.edgeTarget(edge);
+					double distance = forwardDistances[currentNode] + hierarchy.edgeWeight(edge);
+
+					if (forwardReached[outNeighbor] != epoch || distance < forwardDistances[outNeighbor]) {
+						relaxed++;
+
+						if (listener != null)
+							relaxed(listener, currentNode, outNeighbor, outNeighbor, distance, forwardReached[outNeighbor] != epoch);
+
+						forwardReached[outNeighbor] = epoch;
+						forwardDistances[outNeighbor] = distance;
+						parent[outNeighbor] = currentNode;
+						parentEdge[outNeighbor] = edge;
+						forwardFrontier.insertOrDecrease(outNeighbor, distance);
+					}
+				}
+
+			} else {
+				int currentNode = backwardFrontier.removeMin();
+
+				if (listener != null)
+					listener.nodeSettled(currentNode);
+
+				if (forwardReached[currentNode] == epoch && forwardDistances[currentNode] + backwardDistances[currentNode] < shortestJourney) {
+					shortestJourney = forwardDistances[currentNode] + backwardDistances[currentNode];
+					meetingNode = currentNode;
+				}
+
+				for (int slot = hierarchy.downEdgesBegin(currentNode); slot < hierarchy.downEdgesEnd(currentNode); slot++) {
+					int edge = hierarchy.downEdge(slot);
+					int inNeighbor = hierarchy.edgeOrigin(edge);
+					double distance = backwardDistances[currentNode] + hierarchy.edgeWeight(edge);
+
+					if (backwardReached[inNeighbor] != epoch || distance < backwardDistances[inNeighbor]) {
+						relaxed++;
+
+						if (listener != null)
+							relaxed(listener, inNeighbor, currentNode, inNeighbor, distance, backwardReached[inNeighbor] != epoch);
+
+						backwardReached[inNeighbor] = epoch;
+						backwardDistances[inNeighbor] = distance;
+						child[inNeighbor] = currentNode;
+						childEdge[inNeighbor] = edge;
+						backwardFrontier.insertOrDecrease(inNeighbor, distance);
+					}
+				}
+			}
+		}
+
+		if (meetingNode == -1)
+			return BreadthFirstSearch.finished(workspace, false, settled, relaxed);
+
+		recordPath(hierarchy, origin, meetingNode, destination, workspace);
+
+		return BreadthFirstSearch.finished(workspace, true, settled, relaxed);
+	}
+
+	private static void relaxed(TraversalListener listener, int origin, int destination, int reached, double cost, boolean firstReached) {
+		listener.edgeRelaxed(origin, destination, cost);
+
+		if (firstReached)
+			listener.nodeDiscovered(reached);
+	}
+
+	// Lays the hierarchy edges of the journey on a stack, first edge on top, and
+	// replaces every shortcut taken off the stack by its two halves until only edges
+	// of the graph are left.
+	private static void recordPath(ContractionHierarchy hierarchy, int origin, int meetingNode, int destination, SearchWorkspace workspace) {
+		CompactGraph graph = hierarchy.graph();
+		int[] pending = workspace.unpackStack;
+		int size = 0;
+
+		for (int node = meetingNode; node != destination; node = workspace.child[node]) {
+			pending = ensureCapacity(pending, size + 1);
+			pending[size++] = workspace.childEdge[node];
+		}
+
+		for (int i = 0, j = size - 1; i < j; i++, j--) {
+			int edge = pending[i];
+
+			pending[i] = pending[j];
+			pending[j] = edge;
+		}
+
+		for (int node = meetingNode; node != origin; node = workspace.parent[node]) {
+			pending = ensureCapacity(pending, size + 1);
+			pending[size++] = workspace.parentEdge[node];
+		}
+
+		workspace.startPath(origin);
+
+		while (size > 0) {
+			int edge = pending[--size];
+
+			if (hierarchy.isShortcut(edge)) {
+				pending = ensureCapacity(pending, size + 2);
+				pending[size++] = hierarchy.secondHalf(edge);
+				pending[size++] = hierarchy.firstHalf(edge);
+
+			} else {
+				workspace.extendPath(graph, hierarchy.originalEdge(edge));
+			}
+		}
+
+		workspace.unpackStack = pending;
+		workspace.finishPath(graph);
+	}
+
+	private static int[] ensureCapacity(int[] stack, int size) {
+		return size > stack.length ? Arrays.copyOf(stack, Math.max(size, stack.length * 2)) : stack;
+	}
+}
@@ -0,0 +1,227 @@
+package improvedgraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import improvedgraph.util.DequeStack;
+import improvedgraph.util.Stack;
+
+/**
+ * A {@link Graph} that can change while it is being navigated. Mutations are
+ * applied one writer at a time to a private graph, which is then frozen and
+ * published through an atomic reference. Readers navigate whichever
+ * {@link CompactGraph} was published last without taking any lock, so a road
+ * closure never pauses routing and no query ever sees half of an update.
+ */
+public class LiveGraph {
+
+	private final Graph graph;
+	private final AtomicReference<CompactGraph> published;
+	private final Map<GraphEdge, GraphEdge> closedRoads = new HashMap<>();
+	private final ThreadLocal<SearchWorkspace> workspaces = new ThreadLocal<>();
+	private volatile QueryMetrics metrics;
+
+	// The graph is taken over, so it should only be changed through this object from now on.
+	public LiveGraph(Graph graph) {
+
+		if (graph == null)
+			throw new IllegalArgumentException("You are trying to create a live graph from a null graph. Please, check it out.");
+
+		this.graph = graph;
+		this.published = new AtomicReference<>(graph.freeze());
+	}
+
+	public CompactGraph snapshot() {
+		return published.get();
+	}
+
+	/*
+	 * Applies the mutation and publishes the result as one version. A mutation that
+	 * throws publishes nothing, but whatever it already changed goes out with the next update.
+	 * Publishing freezes the whole graph, which costs O(V + E) however small the change,
+	 * so many changes are better made in one update than in one update each.
+	 */
+	public synchronized CompactGraph update(Consumer<Graph> mutation) {
+		mutation.accept(graph);
+
+		return publish();
+	}
+
+	// Publishes a new version, freezing the whole graph in O(V + E). Use closeRoads to close many at once.
+	public synchronized GraphEdge closeRoad(GraphNode origin, GraphNode destination) {
+		GraphEdge road = openRoad(origin, destination);
+
+		close(road);
+		publish();
+
+		return copyOf(road);
+	}
+
+	// Publishes a single new version, in O(V + E), once every road is closed. Nothing is closed if any of them is not open.
+	public synchronized List<GraphEdge> closeRoads(Collection<GraphEdge> roads) {
+		List<GraphEdge> closing = new ArrayList<>(roads.size());
+
+		for (GraphEdge road : roads) {
+			closing.add(openRoad(road.origin(), road.destination()));
+		}
+
+		if (new HashSet<>(closing).size() < closing.size())
+			throw new IllegalArgumentException("You are trying to close the same road twice. Please, check it out.");
+
+		List<GraphEdge> closed = new ArrayList<>(closing.size());
+
+		for (GraphEdge road : closing) {
+			close(road);
+			closed.add(copyOf(road));
+		}
+
+		publish();
+
+		return closed;
+	}
+
+	// Publishes a new version, freezing the whole graph in O(V + E). Use reopenRoads to reopen many at once.
+	public synchronized GraphEdge reopenRoad(GraphNode origin, GraphNode destination) {
+		GraphEdge road = closedRoad(origin, destination);
+
+		reopen(road);
+		publish();
+
+		return copyOf(road);
+	}
+
+	// Publishes a single new version, in O(V + E), once every road is reopened. Nothing is reopened if any of them was not closed.
+	public synchronized List<GraphEdge> reopenRoads(Collection<GraphEdge> roads) {
+		List<GraphEdge> reopening = new ArrayList<>(roads.size());
+
+		for (GraphEdge road : roads) {
+			reopening.add(closedRoad(road.origin(), road.destination()));
+		}
+
+		if (new HashSet<>(reopening).size() < reopening.size())
+			throw new IllegalArgumentException("You are trying to reopen the same road twice. Please, check it out.");
+
+		List<GraphEdge> reopened = new ArrayList<>(reopening.size());
+
+		for (GraphEdge road : reopening) {
+			reopen(road);
+			reopened.add(copyOf(road));
+		}
+
+		publish();
+
+		return reopened;
+	}
+
+	private GraphEdge openRoad(GraphNode origin, GraphNode destination) {
+		int originId = graph.idOf(origin);
+
+		if (originId == -1 || !graph.nodeWithId(originId).hasEdgeTo(destination))
+			throw new IllegalArgumentException("You are trying to close a road that is not open. Please, check it out.");
+
+		return graph.nodeWithId(originId).getEdgeTo(destination);
+	}
+
+	private void close(GraphEdge road) {
+		graph.removeTheEdgeBetweenTheFollowingNodes(road.origin(), road.destination());
+		closedRoads.put(road, road);
+	}
+
+	private GraphEdge closedRoad(GraphNode origin, GraphNode destination) {
+		GraphEdge road = closedRoads.get(new GraphEdge(origin, destination));
+
+		if (road == null)
+			throw new IllegalArgumentException("You are trying to reopen a road that was not closed. Please, check it out.");
+
+		return road;
+	}
+
+	private void reopen(GraphEdge road) {
+		graph.restoreEdge(road);
+		closedRoads.remove(road);
+	}
+
+	// The copy constructor of GraphEdge only copies the ends, but callers want to see what they closed or reopened.
+	private static GraphEdge copyOf(GraphEdge road) {
+		GraphEdge copy = new GraphEdge(road);
+
+		copy.weight(road.weight());
+		copy.type(road.type());
+		copy.label(road.label());
+		copy.direction(road.direction());
+
+		return copy;
+	}
+
+	// Every version published from now on records its searches into the metrics.
+	public synchronized void metrics(QueryMetrics metrics) {
+		this.metrics = metrics;
+		published.get().metrics(metrics);
+	}
+
+	private CompactGraph publish() {
+		CompactGraph version = graph.freeze();
+
+		version.metrics(metrics);
+		published.set(version);
+
+		return version;
+	}
+
+	public Stack<GraphEdge> navigate(GraphNode origin, GraphNode destination) {
+		CompactGraph version = snapshot();
+		SearchWorkspace workspace = workspaceFor(version);
+
+		return version.findPath(journeyStart(version, origin, destination), version.idOf(destination), workspace) ? version.pathEdges(workspace) : new DequeStack<>();
+	}
+
+	public Stack<GraphEdge> navigateBidirectionally(GraphNode origin, GraphNode destination) {
+		CompactGraph version = snapshot();
+		SearchWorkspace workspace = workspaceFor(version);
+
+		return version.findPathBidirectionally(journeyStart(version, origin, destination), version.idOf(destination), workspace) ? version.pathEdges(workspace)
+				: new DequeStack<>();
+	}
+
+	public WeightedPath navigateByWeight(GraphNode origin, GraphNode destination) {
+		CompactGraph version = snapshot();
+		SearchWorkspace workspace = workspaceFor(version);
+
+		if (!version.findCheapestPath(journeyStart(version, origin, destination), version.idOf(destination), 0.0, workspace))
+			return WeightedPath.unreachable();
+
+		return new WeightedPath(version.pathEdges(workspace), workspace.pathCost());
+	}
+
+	private static int journeyStart(CompactGraph version, GraphNode origin, GraphNode destination) {
+
+		if(origin == null || destination == null)
+			throw new IllegalArgumentException("You are trying to navigate " + (origin == null ? "from a null origin" : "to a null destination") + ". Please, check it out.");
+
+		if(!version.contains(origin))
+			throw new IllegalArgumentException("You are trying to navigate from an origin that is not in the graph. Please, check it out.");
+
+		if(!version.contains(destination))
+			throw new IllegalArgumentException("You are trying to navigate to a destination that is not in the graph. Please, check it out.");
+
+		return version.idOf(origin);
+	}
+
+	// Versions come and go, so each reader keeps one workspace for all of them and only replaces it when the graph outgrows it.
+	private SearchWorkspace workspaceFor(CompactGraph version) {
+		SearchWorkspace workspace = workspaces.get();
+
+		if (workspace == null || workspace.capacity() < version.nodeCount()) {
+			workspace = new SearchWorkspace(Math.max(16, version.nodeCount() + (version.nodeCount() >>> 1)));
+			workspaces.set(workspace);
+		}
+
+		return workspace;
+	}
+}
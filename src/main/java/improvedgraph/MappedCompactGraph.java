@@ -0,0 +1,220 @@
+package improvedgraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CompactGraph} whose rows stay in a file written by
+ * {@link GraphWriter#writeBinary(CompactGraph, java.io.OutputStream)}, mapped
+ * section by section. The file is little-endian, the native order of the
+ * machines it is meant for, so the mapped views read it without swapping bytes.
+ */
+final class MappedCompactGraph extends CompactGraph {
+
+	private final DoubleBuffer xCoordinates;
+	private final DoubleBuffer yCoordinates;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final DoubleBuffer weights;
+	private final ByteBuffer types;
+	private final IntBuffer labelIds;
+	private final String[] labels;
+	private final IntBuffer labelOffsets;
+	private final ByteBuffer labelBytes;
+	private final IntBuffer inOffsets;
+	private final IntBuffer inOrigins;
+	private final IntBuffer inEdges;
+
+	private MappedCompactGraph(Path path, FileChannel channel, ByteBuffer header) throws IOException {
+		super((header.getInt(24) & GraphWriter.NEGATIVE_WEIGHTS) != 0);
+
+		int nodeCount = header.getInt(8);
+		int edgeCount = header.getInt(12);
+		int labelCount = header.getInt(16);
+		int labelByteCount = header.getInt(20);
+		long expectedSize = GraphWriter.BINARY_HEADER_BYTES + 8L * (2L * nodeCount + edgeCount)
+				+ 4L * (2L * (nodeCount + 1) + 4L * edgeCount + labelCount + 1) + edgeCount + labelByteCount;
+
+		if (nodeCount < 0 || edgeCount < 0 || labelCount < 0 || labelByteCount < 0 || channel.size() != expectedSize)
+			throw new IllegalArgumentException("You are trying to open " + path + ", whose size does not match its header. Please, check it out.");
+
+		Sections sections = new Sections(channel, GraphWriter.BINARY_HEADER_BYTES);
+
+		xCoordinates = sections.next(8L * nodeCount).asDoubleBuffer();
+		yCoordinates = sections.next(8L * nodeCount).asDoubleBuffer();
+		weights = sections.next(8L * edgeCount).asDoubleBuffer();
+		offsets = sections.next(4L * (nodeCount + 1)).asIntBuffer();
+		targets = sections.next(4L * edgeCount).asIntBuffer();
+		inOffsets = sections.next(4L * (nodeCount + 1)).asIntBuffer();
+		inOrigins = sections.next(4L * edgeCount).asIntBuffer();
+		inEdges = sections.next(4L * edgeCount).asIntBuffer();
+		labelIds = sections.next(4L * edgeCount).asIntBuffer();
+		labelOffsets = sections.next(4L * (labelCount + 1)).asIntBuffer();
+		types = sections.next(edgeCount);
+		labelBytes = sections.next(labelByteCount);
+		labels = new String[labelCount];
+	}
+
+	static CompactGraph map(Path path) throws IOException {
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(GraphWriter.BINARY_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+			while (header.hasRemaining() && channel.read(header) != -1) {
+			}
+
+			if (header.hasRemaining())
+				throw notAGraphFile(path);
+
+			// Files of the first version were big-endian, so their magic number reads backwards.
+			if (header.getInt(0) == Integer.reverseBytes(GraphWriter.BINARY_MAGIC))
+				header.order(ByteOrder.BIG_ENDIAN);
+			else if (header.getInt(0) != GraphWriter.BINARY_MAGIC)
+				throw notAGraphFile(path);
+
+			int version = header.getInt(4);
+
+			if (version != GraphWriter.BINARY_VERSION)
+				throw new IllegalArgumentException("You are trying to open " + path + ", which was written in version " + version
+						+ " of the graph file format. Only version " + GraphWriter.BINARY_VERSION + " is supported.");
+
+			return new MappedCompactGraph(path, channel, header);
+		}
+	}
+
+	private static IllegalArgumentException notAGraphFile(Path path) {
+		return new IllegalArgumentException("You are trying to open " + path + ", which is not a graph file. Please, check it out.");
+	}
+
+	private static final class Sections {
+
+		private final FileChannel channel;
+		private long position;
+
+		Sections(FileChannel channel, long position) {
+			this.channel = channel;
+			this.position = position;
+		}
+
+		ByteBuffer next(long size) throws IOException {
+			ByteBuffer section = channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+
+			position += size;
+
+			return section;
+		}
+	}
+
+	@Override
+	public int nodeCount() {
+		return xCoordinates.limit();
+	}
+
+	@Override
+	public int edgeCount() {
+		return targets.limit();
+	}
+
+	@Override
+	public double xCoordinate(int id) {
+		return xCoordinates.get(id);
+	}
+
+	@Override
+	public double yCoordinate(int id) {
+		return yCoordinates.get(id);
+	}
+
+	@Override
+	public int outDegree(int id) {
+		return offsets.get(id + 1) - offsets.get(id);
+	}
+
+	@Override
+	public int edgesBegin(int id) {
+		return offsets.get(id);
+	}
+
+	@Override
+	public int edgesEnd(int id) {
+		return offsets.get(id + 1);
+	}
+
+	@Override
+	public int edgeTarget(int edge) {
+		return targets.get(edge);
+	}
+
+	@Override
+	public double edgeWeight(int edge) {
+		return weights.get(edge);
+	}
+
+	@Override
+	EdgeType edgeType(int edge) {
+		byte type = types.get(edge);
+
+		return type == NO_TYPE ? null : EDGE_TYPES[type];
+	}
+
+	@Override
+	int edgeLabelId(int edge) {
+		return labelIds.get(edge);
+	}
+
+	@Override
+	int labelCount() {
+		return labels.length;
+	}
+
+	// Labels are decoded on first use. Threads racing to decode the same label just store equal strings.
+	@Override
+	String label(int labelId) {
+		String label = labels[labelId];
+
+		if (label == null) {
+			byte[] encodedLabel = new byte[labelOffsets.get(labelId + 1) - labelOffsets.get(labelId)];
+
+			for (int i = 0; i < encodedLabel.length; i++) {
+				encodedLabel[i] = labelBytes.get(labelOffsets.get(labelId) + i);
+			}
+
+			label = new String(encodedLabel, StandardCharsets.UTF_8);
+			labels[labelId] = label;
+		}
+
+		return label;
+	}
+
+	@Override
+	public int inDegree(int id) {
+		return inOffsets.get(id + 1) - inOffsets.get(id);
+	}
+
+	@Override
+	public int inEdgesBegin(int id) {
+		return inOffsets.get(id);
+	}
+
+	@Override
+	public int inEdgesEnd(int id) {
+		return inOffsets.get(id + 1);
+	}
+
+	@Override
+	public int inEdgeOrigin(int slot) {
+		return inOrigins.get(slot);
+	}
+
+	@Override
+	public int inEdge(int slot) {
+		return inEdges.get(slot);
+	}
+}
@@ -0,0 +1,492 @@
+package improvedgraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import improvedgraph.util.IndexedMinHeap;
+
+// Contracts the nodes of a graph in rounds, after Geisberger et al. and the
+// parallel scheme of Vetter. Each round recomputes the priority of the nodes
+// whose neighbourhood changed, picks every node whose priority is lower than
+// that of all its neighbours, and runs their witness searches in parallel. The
+// picked nodes are never adjacent, so their shortcuts can be worked out at once,
+// as long as no witness path runs through another node picked in the same round.
+final class NodeContractor {
+
+	private static final int NODE_BATCH = 256;
+	private static final int CONTRACTION_BATCH = 16;
+	private static final int SETTLE_LIMIT = 500;
+
+	private final CompactGraph graph;
+	private final ForkJoinPool pool;
+	private final int nodeCount;
+	private final Row[] outRows;
+	private final Row[] inRows;
+	private final int[] ranks;
+	private final int[] priorities;
+	private final int[] contractedNeighbours;
+	private final boolean[] stale;
+	private final boolean[] contracting;
+	// Lent to one batch of nodes at a time. They belong to this build only, so they go away with it
+	// instead of staying behind in the threads of a pool that outlives it.
+	private final ConcurrentLinkedQueue<WitnessSearch> witnessSearches = new ConcurrentLinkedQueue<>();
+
+	private int edgeCount;
+	private int[] origins = new int[16];
+	private int[] targets = new int[16];
+	private double[] weights = new double[16];
+	private int[] originalEdges = new int[16];
+	private int[] firstHalves = new int[16];
+	private int[] secondHalves = new int[16];
+	private boolean[] recorded = new boolean[16];
+
+	private NodeContractor(CompactGraph graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool = pool;
+		this.nodeCount = graph.nodeCount();
+		this.outRows = new Row[nodeCount];
+		this.inRows = new Row[nodeCount];
+		this.ranks = new int[nodeCount];
+		this.priorities = new int[nodeCount];
+		this.contractedNeighbours = new int[nodeCount];
+		this.stale = new boolean[nodeCount];
+		this.contracting = new boolean[nodeCount];
+	}
+
+	static ContractionHierarchy contract(CompactGraph graph, ForkJoinPool pool) {
+		NodeContractor contractor = new NodeContractor(graph, pool);
+
+		contractor.loadGraph();
+		contractor.contractAll();
+
+		return contractor.hierarchy();
+	}
+
+	private void loadGraph() {
+
+		for (int id = 0; id < nodeCount; id++) {
+			outRows[id] = new Row();
+			inRows[id] = new Row();
+		}
+
+		for (int origin = 0; origin < nodeCount; origin++) {
+			for (int edge = graph.edgesBegin(origin); edge < graph.edgesEnd(origin); edge++) {
+				int target = graph.edgeTarget(edge);
+
+				// A loop never lies on a shortest path.
+				if (target != origin)
+					addEdge(origin, target, graph.edgeWeight(edge), edge, -1, -1);
+			}
+		}
+
+		Arrays.fill(ranks, -1);
+		Arrays.fill(stale, true);
+	}
+
+	private void contractAll() {
+		int[] remaining = new int[nodeCount];
+		int remainingCount = nodeCount;
+		int[] selected = new int[nodeCount];
+		int rank = 0;
+
+		for (int id = 0; id < nodeCount; id++) {
+			remaining[id] = id;
+		}
+
+		while (remainingCount > 0) {
+			int[] candidates = remaining;
+
+			pool.invoke(new RangeTask(0, remainingCount, NODE_BATCH, (from, to) -> {
+				WitnessSearch witnessSearch = borrowWitnessSearch();
+
+				for (int i = from; i < to; i++) {
+					int node = candidates[i];
+
+					if (stale[node]) {
+						priorities[node] = priority(node, witnessSearch);
+						stale[node] = false;
+					}
+				}
+
+				witnessSearches.offer(witnessSearch);
+			}));
+
+			pool.invoke(new RangeTask(0, remainingCount, NODE_BATCH, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					contracting[candidates[i]] = isLocalMinimum(candidates[i]);
+				}
+			}));
+
+			int selectedCount = 0;
+			int left = 0;
+
+			for (int i = 0; i < remainingCount; i++) {
+				if (contracting[remaining[i]])
+					selected[selectedCount++] = remaining[i];
+				else
+					remaining[left++] = remaining[i];
+			}
+
+			Shortcuts[] shortcuts = new Shortcuts[selectedCount];
+			int[] contracted = selected;
+
+			pool.invoke(new RangeTask(0, selectedCount, CONTRACTION_BATCH, (from, to) -> {
+				WitnessSearch witnessSearch = borrowWitnessSearch();
+
+				for (int i = from; i < to; i++) {
+					shortcuts[i] = new Shortcuts();
+					findShortcuts(contracted[i], shortcuts[i], witnessSearch);
+				}
+
+				witnessSearches.offer(witnessSearch);
+			}));
+
+			for (int i = 0; i < selectedCount; i++) {
+				ranks[selected[i]] = rank++;
+				detach(selected[i]);
+			}
+
+			for (int i = 0; i < selectedCount; i++) {
+				shortcuts[i].addTo(this);
+				contracting[selected[i]] = false;
+			}
+
+			remainingCount = left;
+		}
+	}
+
+	// Shortcuts the node would add, less the edges it would remove, plus how many of its neighbours are
+	// already gone, so that contraction spreads evenly over the graph instead of eating one region first.
+	private int priority(int node, WitnessSearch witnessSearch) {
+		return findShortcuts(node, null, witnessSearch) - outRows[node].size - inRows[node].size + contractedNeighbours[node];
+	}
+
+	// Ties are broken by id, so two neighbours never both see themselves as the lower one.
+	private boolean isLocalMinimum(int node) {
+		return isBelow(node, outRows[node]) && isBelow(node, inRows[node]);
+	}
+
+	private boolean isBelow(int node, Row neighbours) {
+		int priority = priorities[node];
+
+		for (int i = 0; i < neighbours.size; i++) {
+			int neighbour = neighbours.nodes[i];
+
+			if (priorities[neighbour] < priority || (priorities[neighbour] == priority && neighbour < node))
+				return false;
+		}
+
+		return true;
+	}
+
+	// Counts the shortcuts contracting the node needs, and collects them when given somewhere to put them.
+	private int findShortcuts(int node, Shortcuts shortcuts, WitnessSearch witnessSearch) {
+		Row in = inRows[node];
+		Row out = outRows[node];
+		int count = 0;
+
+		for (int i = 0; i < in.size; i++) {
+			int origin = in.nodes[i];
+			double longestJourney = 0.0;
+
+			for (int j = 0; j < out.size; j++) {
+				if (out.nodes[j] != origin)
+					longestJourney = Math.max(longestJourney, in.weights[i] + out.weights[j]);
+			}
+
+			witnessSearch.run(origin, node, longestJourney);
+
+			for (int j = 0; j < out.size; j++) {
+				int target = out.nodes[j];
+				double journey = in.weights[i] + out.weights[j];
+
+				if (target != origin && !witnessSearch.reaches(target, journey)) {
+					count++;
+
+					if (shortcuts != null)
+						shortcuts.add(origin, target, journey, in.edges[i], out.edges[j]);
+				}
+			}
+		}
+
+		return count;
+	}
+
+	private WitnessSearch borrowWitnessSearch() {
+		WitnessSearch witnessSearch = witnessSearches.poll();
+
+		return witnessSearch == null ? new WitnessSearch(outRows, contracting) : witnessSearch;
+	}
+
+	private void detach(int node) {
+		Row out = outRows[node];
+		Row in = inRows[node];
+
+		for (int i = 0; i < out.size; i++) {
+			recorded[out.edges[i]] = true;
+			inRows[out.nodes[i]].remove(node);
+			neighbourContracted(out.nodes[i]);
+		}
+
+		for (int i = 0; i < in.size; i++) {
+			recorded[in.edges[i]] = true;
+			outRows[in.nodes[i]].remove(node);
+			neighbourContracted(in.nodes[i]);
+		}
+
+		outRows[node] = null;
+		inRows[node] = null;
+	}
+
+	private void neighbourContracted(int node) {
+		contractedNeighbours[node]++;
+		stale[node] = true;
+	}
+
+	// Keeps only the cheapest edge between two nodes.
+	private void addEdge(int origin, int target, double weight, int originalEdge, int firstHalf, int secondHalf) {
+		int slot = outRows[origin].indexOf(target);
+
+		if (slot != -1 && outRows[origin].weights[slot] <= weight)
+			return;
+
+		if (edgeCount == origins.length)
+			growEdges();
+
+		origins[edgeCount] = origin;
+		targets[edgeCount] = target;
+		weights[edgeCount] = weight;
+		originalEdges[edgeCount] = originalEdge;
+		firstHalves[edgeCount] = firstHalf;
+		secondHalves[edgeCount] = secondHalf;
+		outRows[origin].put(target, weight, edgeCount);
+		inRows[target].put(origin, weight, edgeCount);
+		edgeCount++;
+	}
+
+	private void growEdges() {
+		int newCapacity = origins.length * 2;
+
+		origins = Arrays.copyOf(origins, newCapacity);
+		targets = Arrays.copyOf(targets, newCapacity);
+		weights = Arrays.copyOf(weights, newCapacity);
+		originalEdges = Arrays.copyOf(originalEdges, newCapacity);
+		firstHalves = Arrays.copyOf(firstHalves, newCapacity);
+		secondHalves = Arrays.copyOf(secondHalves, newCapacity);
+		recorded = Arrays.copyOf(recorded, newCapacity);
+	}
+
+	// Drops the edges that were replaced by cheaper ones before either end was contracted. A shortcut is
+	// always added after its halves, so a single pass from the last edge down finds every half still needed.
+	private ContractionHierarchy hierarchy() {
+		boolean[] kept = Arrays.copyOf(recorded, edgeCount);
+		int[] newIds = new int[edgeCount];
+		int keptCount = 0;
+
+		for (int edge = edgeCount - 1; edge >= 0; edge--) {
+			if (kept[edge] && originalEdges[edge] == -1) {
+				kept[firstHalves[edge]] = true;
+				kept[secondHalves[edge]] = true;
+			}
+		}
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			newIds[edge] = kept[edge] ? keptCount++ : -1;
+		}
+
+		int[] edgeOrigins = new int[keptCount];
+		int[] edgeTargets = new int[keptCount];
+		double[] edgeWeights = new double[keptCount];
+		int[] edgeOriginals = new int[keptCount];
+		int[] edgeFirstHalves = new int[keptCount];
+		int[] edgeSecondHalves = new int[keptCount];
+		int[] upOffsets = new int[nodeCount + 1];
+		int[] downOffsets = new int[nodeCount + 1];
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (kept[edge]) {
+				int id = newIds[edge];
+
+				edgeOrigins[id] = origins[edge];
+				edgeTargets[id] = targets[edge];
+				edgeWeights[id] = weights[edge];
+				edgeOriginals[id] = originalEdges[edge];
+				edgeFirstHalves[id] = originalEdges[edge] == -1 ? newIds[firstHalves[edge]] : -1;
+				edgeSecondHalves[id] = originalEdges[edge] == -1 ? newIds[secondHalves[edge]] : -1;
+
+				if (recorded[edge]) {
+					if (ranks[origins[edge]] < ranks[targets[edge]])
+						upOffsets[origins[edge] + 1]++;
+					else
+						downOffsets[targets[edge] + 1]++;
+				}
+			}
+		}
+
+		for (int id = 0; id < nodeCount; id++) {
+			upOffsets[id + 1] += upOffsets[id];
+			downOffsets[id + 1] += downOffsets[id];
+		}
+
+		int[] upEdges = new int[upOffsets[nodeCount]];
+		int[] downEdges = new int[downOffsets[nodeCount]];
+		int[] upCursors = Arrays.copyOf(upOffsets, nodeCount);
+		int[] downCursors = Arrays.copyOf(downOffsets, nodeCount);
+
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (recorded[edge]) {
+				if (ranks[origins[edge]] < ranks[targets[edge]])
+					upEdges[upCursors[origins[edge]]++] = newIds[edge];
+				else
+					downEdges[downCursors[targets[edge]]++] = newIds[edge];
+			}
+		}
+
+		return new ContractionHierarchy(graph, ranks, upOffsets, upEdges, downOffsets, downEdges, edgeOrigins, edgeTargets,
+				edgeWeights, edgeOriginals, edgeFirstHalves, edgeSecondHalves);
+	}
+
+	// The uncontracted neighbours of a node on one side, along with the weight and id of the edge to each.
+	private static final class Row {
+
+		int size;
+		int[] nodes = new int[4];
+		double[] weights = new double[4];
+		int[] edges = new int[4];
+
+		int indexOf(int node) {
+
+			for (int i = 0; i < size; i++) {
+				if (nodes[i] == node)
+					return i;
+			}
+
+			return -1;
+		}
+
+		void put(int node, double weight, int edge) {
+			int slot = indexOf(node);
+
+			if (slot == -1) {
+
+				if (size == nodes.length) {
+					nodes = Arrays.copyOf(nodes, size * 2);
+					weights = Arrays.copyOf(weights, size * 2);
+					edges = Arrays.copyOf(edges, size * 2);
+				}
+
+				slot = size++;
+				nodes[slot] = node;
+			}
+
+			weights[slot] = weight;
+			edges[slot] = edge;
+		}
+
+		void remove(int node) {
+			int slot = indexOf(node);
+
+			if (slot != -1) {
+				size--;
+				nodes[slot] = nodes[size];
+				weights[slot] = weights[size];
+				edges[slot] = edges[size];
+			}
+		}
+	}
+
+	private static final class Shortcuts {
+
+		private int size;
+		private int[] origins = new int[4];
+		private int[] targets = new int[4];
+		private double[] weights = new double[4];
+		private int[] firstHalves = new int[4];
+		private int[] secondHalves = new int[4];
+
+		void add(int origin, int target, double weight, int firstHalf, int secondHalf) {
+
+			if (size == origins.length) {
+				origins = Arrays.copyOf(origins, size * 2);
+				targets = Arrays.copyOf(targets, size * 2);
+				weights = Arrays.copyOf(weights, size * 2);
+				firstHalves = Arrays.copyOf(firstHalves, size * 2);
+				secondHalves = Arrays.copyOf(secondHalves, size * 2);
+			}
+
+			origins[size] = origin;
+			targets[size] = target;
+			weights[size] = weight;
+			firstHalves[size] = firstHalf;
+			secondHalves[size] = secondHalf;
+			size++;
+		}
+
+		void addTo(NodeContractor contractor) {
+
+			for (int i = 0; i < size; i++) {
+				contractor.addEdge(origins[i], targets[i], weights[i], -1, firstHalves[i], secondHalves[i]);
+			}
+		}
+	}
+
+	// A Dijkstra search that avoids the node being contracted and every node contracted alongside it, and
+	// gives up past the cost of the longest journey through that node or after settling SETTLE_LIMIT nodes.
+	// Giving up early only costs a shortcut that was not needed.
+	private static final class WitnessSearch {
+
+		private final Row[] outRows;
+		private final boolean[] contracting;
+		private final int[] stamps;
+		private final double[] distances;
+		private final IndexedMinHeap frontier;
+		private int epoch;
+
+		WitnessSearch(Row[] outRows, boolean[] contracting) {
+			this.outRows = outRows;
+			this.contracting = contracting;
+			stamps = new int[outRows.length];
+			distances = new double[outRows.length];
+			frontier = new IndexedMinHeap(outRows.length);
+		}
+
+		void run(int origin, int avoided, double maximumCost) {
+
+			if (++epoch == Integer.MAX_VALUE) {
+				Arrays.fill(stamps, 0);
+				epoch = 1;
+			}
+
+			frontier.clear();
+			stamps[origin] = epoch;
+			distances[origin] = 0.0;
+			frontier.insert(origin, 0.0);
+
+			for (int settled = 0; !frontier.isEmpty() && settled < SETTLE_LIMIT; settled++) {
+				int currentNode = frontier.removeMin();
+
+				if (distances[currentNode] > maximumCost)
+					return;
+
+				Row out = outRows[currentNode];
+
+				for (int i = 0; i < out.size; i++) {
+					int outNeighbor = out.nodes[i];
+					double distance = distances[currentNode] + out.weights[i];
+
+					if (outNeighbor != avoided && !contracting[outNeighbor] && (stamps[outNeighbor] != epoch || distance < distances[outNeighbor])) {
+						stamps[outNeighbor] = epoch;
+						distances[outNeighbor] = distance;
+						frontier.insertOrDecrease(outNeighbor, distance);
+					}
+				}
+			}
+		}
+
+		// Any distance found is that of a real path, even if the search stopped before settling the node.
+		boolean reaches(int node, double cost) {
+			return stamps[node] == epoch && distances[node] <= cost;
+		}
+	}
+}
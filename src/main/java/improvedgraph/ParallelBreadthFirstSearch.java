@@ -0,0 +1,229 @@
+package improvedgraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Level-synchronous breadth-first search that switches direction as the frontier
+// grows and shrinks, after Beamer, Asanovic and Patterson. Small frontiers push
+// along their out-edges. Once the frontier's edges outweigh what is left to
+// explore, every unreached node pulls along its in-edges instead, and stops at
+// the first parent it finds in the frontier.
+final class ParallelBreadthFirstSearch {
+
+	private static final int UNREACHED = -1;
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+	private static final int FRONTIER_BATCH = 256;
+	private static final int NODE_BATCH = 4096;
+	private static final int BUFFER_SIZE = 256;
+
+	private final CompactGraph graph;
+	private final ForkJoinPool pool;
+	private final int nodeCount;
+	private final AtomicIntegerArray distances;
+	private final LongAdder frontierEdges = new LongAdder();
+	private final AtomicInteger nextSize = new AtomicInteger();
+	private int[] frontier;
+	private int[] next;
+	private int frontierSize;
+	private long[] frontierBits;
+	private long[] nextBits;
+
+	private ParallelBreadthFirstSearch(CompactGraph graph, ForkJoinPool pool) {
+		this.graph = graph;
+		this.pool = pool;
+		this.nodeCount = graph.nodeCount();
+		this.distances = new AtomicIntegerArray(nodeCount);
+	}
+
+	// Stops after the level that reaches the destination, or explores everything when it is -1.
+	static int[] run(CompactGraph graph, int origin, int destination, ForkJoinPool pool) {
+		ParallelBreadthFirstSearch search = new ParallelBreadthFirstSearch(graph, pool);
+
+		search.explore(origin, destination);
+
+		return search.distances();
+	}
+
+	static boolean reaches(CompactGraph graph, int origin, int destination, ForkJoinPool pool) {
+		ParallelBreadthFirstSearch search = new ParallelBreadthFirstSearch(graph, pool);
+
+		search.explore(origin, destination);
+
+		return search.distances.get(destination) != UNREACHED;
+	}
+
+	private void explore(int origin, int destination) {
+		pool.invoke(new RangeTask(0, nodeCount, NODE_BATCH, (from, to) -> {
+			for (int node = from; node < to; node++) {
+				distances.lazySet(node, UNREACHED);
+			}
+		}));
+
+		distances.set(origin, 0);
+		frontier = new int[] { origin };
+		frontierSize = 1;
+
+		long unexploredEdges = graph.edgeCount() - graph.outDegree(origin);
+		long edgesOfFrontier = graph.outDegree(origin);
+		int previousSize = 0;
+		boolean bottomUp = false;
+
+		for (int level = 1; frontierSize > 0; level++) {
+
+			if (destination != UNREACHED && distances.get(destination) != UNREACHED)
+				return;
+
+			if (bottomUp) {
+
+				// Back to top-down once the frontier is both small and shrinking.
+				if (frontierSize < nodeCount / BETA && frontierSize < previousSize) {
+					toQueue();
+					bottomUp = false;
+				}
+
+			} else if (edgesOfFrontier > unexploredEdges / ALPHA) {
+				toBits();
+				bottomUp = true;
+			}
+
+			previousSize = frontierSize;
+			frontierEdges.reset();
+
+			if (bottomUp)
+				stepBottomUp(level);
+			else
+				stepTopDown(level);
+
+			edgesOfFrontier = frontierEdges.sum();
+			unexploredEdges -= edgesOfFrontier;
+		}
+	}
+
+	private void stepTopDown(int level) {
+
+		if (next == null || next.length < nodeCount)
+			next = new int[nodeCount];
+
+		nextSize.set(0);
+
+		int[] current = frontier;
+
+		pool.invoke(new RangeTask(0, frontierSize, FRONTIER_BATCH, (from, to) -> {
+			int[] found = new int[BUFFER_SIZE];
+			int foundCount = 0;
+			long edges = 0;
+
+			for (int i = from; i < to; i++) {
+				int node = current[i];
+
+				for (int edge = graph.edgesBegin(node); edge < graph.edgesEnd(node); edge++) {
+					int outNeighbor = graph.edgeTarget(edge);
+
+					if (distances.get(outNeighbor) == UNREACHED && distances.compareAndSet(outNeighbor, UNREACHED, level)) {
+						edges += graph.outDegree(outNeighbor);
+						found[foundCount++] = outNeighbor;
+
+						if (foundCount == BUFFER_SIZE) {
+							System.arraycopy(found, 0, next, nextSize.getAndAdd(foundCount), foundCount);
+							foundCount = 0;
+						}
+					}
+				}
+			}
+
+			System.arraycopy(found, 0, next, nextSize.getAndAdd(foundCount), foundCount);
+			frontierEdges.add(edges);
+		}));
+
+		int[] swap = frontier;
+
+		frontier = next;
+		next = swap.length == nodeCount ? swap : null;
+		frontierSize = nextSize.get();
+	}
+
+	private void stepBottomUp(int level) {
+		long[] current = frontierBits;
+		long[] found = nextBits;
+		AtomicInteger foundCount = nextSize;
+
+		Arrays.fill(found, 0L);
+		foundCount.set(0);
+
+		// Batches start at multiples of 64, so no two tasks write to the same word of the bitmap.
+		pool.invoke(new RangeTask(0, nodeCount, NODE_BATCH, (from, to) -> {
+			int count = 0;
+			long edges = 0;
+
+			for (int node = from; node < to; node++) {
+				if (distances.get(node) == UNREACHED) {
+					for (int slot = graph.inEdgesBegin(node); slot < graph.inEdgesEnd(node); slot++) {
+						int inNeighbor = graph.inEdgeOrigin(slot);
+
+						if ((current[inNeighbor >>> 6] & (1L << inNeighbor)) != 0) {
+							distances.lazySet(node, level);
+							found[node >>> 6] |= 1L << node;
+							edges += graph.outDegree(node);
+							count++;
+							break;
+						}
+					}
+				}
+			}
+
+			foundCount.addAndGet(count);
+			frontierEdges.add(edges);
+		}));
+
+		frontierBits = found;
+		nextBits = current;
+		frontierSize = foundCount.get();
+	}
+
+	private void toBits() {
+		int words = (nodeCount + 63) >>> 6;
+
+		if (frontierBits == null) {
+			frontierBits = new long[words];
+			nextBits = new long[words];
+		} else {
+			Arrays.fill(frontierBits, 0L);
+		}
+
+		for (int i = 0; i < frontierSize; i++) {
+			frontierBits[frontier[i] >>> 6] |= 1L << frontier[i];
+		}
+	}
+
+	private void toQueue() {
+
+		if (frontier == null || frontier.length < frontierSize)
+			frontier = new int[nodeCount];
+
+		int size = 0;
+
+		for (int word = 0; word < frontierBits.length; word++) {
+			for (long bits = frontierBits[word]; bits != 0; bits &= bits - 1) {
+				frontier[size++] = (word << 6) + Long.numberOfTrailingZeros(bits);
+			}
+		}
+
+		frontierSize = size;
+	}
+
+	private int[] distances() {
+		int[] hops = new int[nodeCount];
+
+		pool.invoke(new RangeTask(0, nodeCount, NODE_BATCH, (from, to) -> {
+			for (int node = from; node < to; node++) {
+				hops[node] = distances.get(node);
+			}
+		}));
+
+		return hops;
+	}
+}
@@ -0,0 +1,191 @@
+package improvedgraph;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import improvedgraph.util.Histogram;
+
+/**
+ * Per-query figures gathered from the graphs it is attached to: latency, nodes
+ * settled, edges relaxed and, for the queries that found a path, its length.
+ * Recording is lock-free and striped, so it can be shared by every thread that
+ * navigates a graph, and it can be published through JMX.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+
+	private volatile Recorders recorders = new Recorders();
+
+	public void record(long latencyNanos, int nodesSettled, int edgesRelaxed, int pathLength, boolean pathFound) {
+		Recorders recorders = this.recorders;
+
+		recorders.latencies.record(latencyNanos);
+		recorders.nodesSettled.record(nodesSettled);
+		recorders.edgesRelaxed.record(edgesRelaxed);
+
+		if (pathFound)
+			recorders.pathLengths.record(pathLength);
+	}
+
+	// Records the search that just ran with the workspace.
+	void record(long latencyNanos, SearchWorkspace workspace, boolean pathFound) {
+		record(latencyNanos, workspace.nodesSettled, workspace.edgesRelaxed, workspace.pathLength(), pathFound);
+	}
+
+	public Snapshot snapshot() {
+		Recorders recorders = this.recorders;
+
+		return new Snapshot(recorders.latencies.snapshot(), recorders.nodesSettled.snapshot(), recorders.edgesRelaxed.snapshot(), recorders.pathLengths.snapshot());
+	}
+
+	// Starts over with empty histograms. Queries being recorded meanwhile may land in either.
+	@Override
+	public void reset() {
+		recorders = new Recorders();
+	}
+
+	public ObjectName register(String name) {
+
+		try {
+			ObjectName objectName = objectNameFor(name);
+
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+
+			return objectName;
+
+		} catch (JMException e) {
+			throw new IllegalArgumentException("You are trying to register query metrics as " + name + ", which cannot be done: " + e.getMessage(), e);
+		}
+	}
+
+	public void unregister(String name) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		try {
+			ObjectName objectName = objectNameFor(name);
+
+			if (server.isRegistered(objectName))
+				server.unregisterMBean(objectName);
+
+		} catch (JMException e) {
+			throw new IllegalArgumentException("You are trying to unregister the query metrics " + name + ", which cannot be done: " + e.getMessage(), e);
+		}
+	}
+
+	private static ObjectName objectNameFor(String name) throws JMException {
+		return new ObjectName("improvedgraph:type=QueryMetrics,name=" + ObjectName.quote(name));
+	}
+
+	@Override
+	public long getQueries() {
+		return recorders.latencies.snapshot().count();
+	}
+
+	@Override
+	public long getUnreachable() {
+		Snapshot snapshot = snapshot();
+
+		return snapshot.queries() - snapshot.pathLengths().count();
+	}
+
+	@Override
+	public double getLatencyMean() {
+		return recorders.latencies.snapshot().mean();
+	}
+
+	@Override
+	public long getLatency50thPercentile() {
+		return recorders.latencies.snapshot().percentile(50.0);
+	}
+
+	@Override
+	public long getLatency99thPercentile() {
+		return recorders.latencies.snapshot().percentile(99.0);
+	}
+
+	@Override
+	public long getLatency999thPercentile() {
+		return recorders.latencies.snapshot().percentile(99.9);
+	}
+
+	@Override
+	public long getLatencyMax() {
+		return recorders.latencies.snapshot().max();
+	}
+
+	@Override
+	public double getNodesSettledMean() {
+		return recorders.nodesSettled.snapshot().mean();
+	}
+
+	@Override
+	public long getNodesSettled99thPercentile() {
+		return recorders.nodesSettled.snapshot().percentile(99.0);
+	}
+
+	@Override
+	public double getEdgesRelaxedMean() {
+		return recorders.edgesRelaxed.snapshot().mean();
+	}
+
+	@Override
+	public long getEdgesRelaxed99thPercentile() {
+		return recorders.edgesRelaxed.snapshot().percentile(99.0);
+	}
+
+	@Override
+	public double getPathLengthMean() {
+		return recorders.pathLengths.snapshot().mean();
+	}
+
+	@Override
+	public long getPathLengthMax() {
+		return recorders.pathLengths.snapshot().max();
+	}
+
+	private static final class Recorders {
+
+		private final Histogram latencies = new Histogram();
+		private final Histogram nodesSettled = new Histogram();
+		private final Histogram edgesRelaxed = new Histogram();
+		private final Histogram pathLengths = new Histogram();
+	}
+
+	public static final class Snapshot {
+
+		private final Histogram.Snapshot latencies;
+		private final Histogram.Snapshot nodesSettled;
+		private final Histogram.Snapshot edgesRelaxed;
+		private final Histogram.Snapshot pathLengths;
+
+		private Snapshot(Histogram.Snapshot latencies, Histogram.Snapshot nodesSettled, Histogram.Snapshot edgesRelaxed, Histogram.Snapshot pathLengths) {
+			this.latencies = latencies;
+			this.nodesSettled = nodesSettled;
+			this.edgesRelaxed = edgesRelaxed;
+			this.pathLengths = pathLengths;
+		}
+
+		public long queries() {
+			return latencies.count();
+		}
+
+		public Histogram.Snapshot latencies() {
+			return latencies;
+		}
+
+		public Histogram.Snapshot nodesSettled() {
+			return nodesSettled;
+		}
+
+		public Histogram.Snapshot edgesRelaxed() {
+			return edgesRelaxed;
+		}
+
+		// Only the queries that found a path.
+		public Histogram.Snapshot pathLengths() {
+			return pathLengths;
+		}
+	}
+}
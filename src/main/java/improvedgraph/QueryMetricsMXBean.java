@@ -0,0 +1,36 @@
+package improvedgraph;
+
+/**
+ * Management view of a {@link QueryMetrics}. Every attribute is read from a
+ * fresh snapshot, latencies are in nanoseconds and path lengths in edges.
+ */
+public interface QueryMetricsMXBean {
+
+	long getQueries();
+
+	long getUnreachable();
+
+	double getLatencyMean();
+
+	long getLatency50thPercentile();
+
+	long getLatency99thPercentile();
+
+	long getLatency999thPercentile();
+
+	long getLatencyMax();
+
+	double getNodesSettledMean();
+
+	long getNodesSettled99thPercentile();
+
+	double getEdgesRelaxedMean();
+
+	long getEdgesRelaxed99thPercentile();
+
+	double getPathLengthMean();
+
+	long getPathLengthMax();
+
+	void reset();
+}
@@ -0,0 +1,41 @@
+package improvedgraph;
+
+import java.util.concurrent.RecursiveAction;
+
+// Splits a range of ids in halves until each part fits in a batch. Parts start at
+// multiples of the batch size, so tasks given batches of a multiple of 64 never
+// share a word of a bitmap indexed by id.
+final class RangeTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int from;
+	private final int to;
+	private final int batch;
+	private final RangeAction action;
+
+	RangeTask(int from, int to, int batch, RangeAction action) {
+		this.from = from;
+		this.to = to;
+		this.batch = batch;
+		this.action = action;
+	}
+
+	@Override
+	protected void compute() {
+
+		if (to - from <= batch) {
+			action.run(from, to);
+
+		} else {
+			int middle = from + Math.max(1, ((to - from) / batch) >>> 1) * batch;
+
+			invokeAll(new RangeTask(from, middle, batch, action), new RangeTask(middle, to, batch, action));
+		}
+	}
+
+	interface RangeAction {
+
+		void run(int from, int to);
+	}
+}
@@ -0,0 +1,258 @@
+package improvedgraph;
+
+import java.util.Arrays;
+
+import improvedgraph.util.IndexedMinHeap;
+
+/**
+ * Scratch space for graph searches over dense node ids, meant to be reused
+ * query after query by a single thread. Per-node state is only trusted when its
+ * stamp matches the current search epoch, so nothing needs to be cleared between
+ * searches, and arrays are allocated the first time a kind of search needs them.
+ */
+public class SearchWorkspace {
+
+	final int capacity;
+	int epoch;
+	TraversalListener listener;
+
+	int[] forwardStamps;
+	int[] parent;
+	int[] parentEdge;
+	int[] forwardScheduler;
+
+	int[] backwardStamps;
+	int[] child;
+	int[] childEdge;
+	int[] backwardScheduler;
+	int[] forwardDepths;
+	int[] backwardDepths;
+
+	double[] distances;
+	IndexedMinHeap frontier;
+
+	double[] backwardDistances;
+	IndexedMinHeap backwardFrontier;
+	int[] unpackStack;
+
+	private int[] pathNodes = new int[16];
+	private int[] pathEdges = new int[16];
+	private int pathLength;
+	private double pathCost;
+	int nodesSettled;
+	int edgesRelaxed;
+
+	public SearchWorkspace(int capacity) {
+
+		if (capacity < 0)
+			throw new IllegalArgumentException("You are trying to create a search workspace with a negative capacity. Please, check it out.");
+
+		this.capacity = capacity;
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	// Every search run with this workspace reports to the listener, until it is set back to null.
+	public void listener(TraversalListener listener) {
+		this.listener = listener;
+	}
+
+	public TraversalListener listener() {
+		return listener;
+	}
+
+	public int pathLength() {
+		return pathLength;
+	}
+
+	public int pathNode(int index) {
+
+		if (index < 0 || index > pathLength)
+			throw new IndexOutOfBoundsException("Path node " + index + " of a path with " + pathLength + " edges.");
+
+		return pathNodes[index];
+	}
+
+	public int pathEdge(int index) {
+
+		if (index < 0 || index >= pathLength)
+			throw new IndexOutOfBoundsException("Path edge " + index + " of a path with " + pathLength + " edges.");
+
+		return pathEdges[index];
+	}
+
+	public double pathCost() {
+		return pathCost;
+	}
+
+	// Nodes taken off the frontier by the last search.
+	public int nodesSettled() {
+		return nodesSettled;
+	}
+
+	// Edges that reached a node for the first time, or by a cheaper path, in the last search.
+	public int edgesRelaxed() {
+		return edgesRelaxed;
+	}
+
+	void beginSearch(int nodeCount) {
+
+		if (nodeCount > capacity)
+			throw new IllegalArgumentException("You are trying to search a graph with " + nodeCount
+					+ " nodes using a workspace for only " + capacity + " nodes. Please, check it out.");
+
+		if (++epoch == Integer.MAX_VALUE) {
+			resetStamps(forwardStamps);
+			resetStamps(backwardStamps);
+			epoch = 1;
+		}
+
+		if (frontier != null)
+			frontier.clear();
+
+		if (backwardFrontier != null)
+			backwardFrontier.clear();
+
+		pathLength = 0;
+		pathCost = Double.POSITIVE_INFINITY;
+		nodesSettled = 0;
+		edgesRelaxed = 0;
+	}
+
+	private static void resetStamps(int[] stamps) {
+
+		if (stamps != null)
+			Arrays.fill(stamps, 0);
+	}
+
+	void prepareForwardSearch() {
+
+		if (forwardStamps == null) {
+			forwardStamps = new int[capacity];
+			parent = new int[capacity];
+			parentEdge = new int[capacity];
+			forwardScheduler = new int[capacity];
+		}
+	}
+
+	void prepareBidirectionalSearch() {
+		prepareForwardSearch();
+
+		if (backwardStamps == null) {
+			backwardStamps = new int[capacity];
+			child = new int[capacity];
+			childEdge = new int[capacity];
+			backwardScheduler = new int[capacity];
+			forwardDepths = new int[capacity];
+			backwardDepths = new int[capacity];
+		}
+	}
+
+	void prepareWeightedSearch() {
+		prepareForwardSearch();
+
+		if (distances == null) {
+			distances = new double[capacity];
+			frontier = new IndexedMinHeap(capacity);
+		}
+	}
+
+	void prepareHierarchySearch() {
+		prepareBidirectionalSearch();
+		prepareWeightedSearch();
+
+		if (backwardDistances == null) {
+			backwardDistances = new double[capacity];
+			backwardFrontier = new IndexedMinHeap(capacity);
+			unpackStack = new int[16];
+		}
+	}
+
+	// Paths that are not walked back through the parent links are recorded one edge at a time.
+	void startPath(int origin) {
+		pathLength = 0;
+		pathNodes[0] = origin;
+	}
+
+	void extendPath(CompactGraph graph, int edge) {
+		ensurePathCapacity(pathLength + 1);
+		pathEdges[pathLength++] = edge;
+		pathNodes[pathLength] = graph.edgeTarget(edge);
+	}
+
+	void finishPath(CompactGraph graph) {
+		sumPathCost(graph);
+	}
+
+	void recordPath(CompactGraph graph, int origin, int destination) {
+		int length = 0;
+
+		for (int node = destination; node != origin; node = parent[node]) {
+			length++;
+		}
+
+		ensurePathCapacity(length);
+		pathLength = length;
+		pathNodes[length] = destination;
+
+		for (int node = destination, i = length; node != origin; node = parent[node]) {
+			pathEdges[--i] = parentEdge[node];
+			pathNodes[i] = parent[node];
+		}
+
+		sumPathCost(graph);
+	}
+
+	void recordPath(CompactGraph graph, int origin, int meetingNode, int destination) {
+		int forwardLength = 0;
+		int length;
+
+		for (int node = meetingNode; node != origin; node = parent[node]) {
+			forwardLength++;
+		}
+
+		length = forwardLength;
+
+		for (int node = meetingNode; node != destination; node = child[node]) {
+			length++;
+		}
+
+		ensurePathCapacity(length);
+		pathLength = length;
+		pathNodes[forwardLength] = meetingNode;
+
+		for (int node = meetingNode, i = forwardLength; node != origin; node = parent[node]) {
+			pathEdges[--i] = parentEdge[node];
+			pathNodes[i] = parent[node];
+		}
+
+		for (int node = meetingNode, i = forwardLength; node != destination; node = child[node], i++) {
+			pathEdges[i] = childEdge[node];
+			pathNodes[i + 1] = child[node];
+		}
+
+		sumPathCost(graph);
+	}
+
+	private void ensurePathCapacity(int length) {
+
+		if (length + 1 > pathNodes.length) {
+			int newCapacity = Math.max(length + 1, pathNodes.length * 2);
+
+			pathNodes = Arrays.copyOf(pathNodes, newCapacity);
+			pathEdges = Arrays.copyOf(pathEdges, newCapacity);
+		}
+	}
+
+	private void sumPathCost(CompactGraph graph) {
+		double cost = 0.0;
+
+		for (int i = 0; i < pathLength; i++) {
+			cost += graph.edgeWeight(pathEdges[i]);
+		}
+
+		pathCost = cost;
+	}
+}
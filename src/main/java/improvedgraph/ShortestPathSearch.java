@@ -0,0 +1,83 @@
+package improvedgraph;
+
+import improvedgraph.util.IndexedMinHeap;
+
+final class ShortestPathSearch {
+
+	private ShortestPathSearch() {
+	}
+
+	static boolean run(CompactGraph graph, int origin, int destination, double heuristicScale, SearchWorkspace workspace) {
+		workspace.beginSearch(graph.nodeCount());
+		workspace.prepareWeightedSearch();
+
+		int epoch = workspace.epoch;
+		int[] reached = workspace.forwardStamps;
+		double[] distances = workspace.distances;
+		int[] parent = workspace.parent;
+		int[] parentEdge = workspace.parentEdge;
+		IndexedMinHeap frontier = workspace.frontier;
+		TraversalListener listener = workspace.listener;
+		int settled = 0;
+		int relaxed = 0;
+
+		if (listener != null)
+			listener.nodeDiscovered(origin);
+
+		reached[origin] = epoch;
+		distances[origin] = 0.0;
+		frontier.insert(origin, heuristic(graph, origin, destination, heuristicScale));
+
+		while (!frontier.isEmpty()) {
+			int currentNode = frontier.removeMin();
+
+			settled++;
+
+			if (listener != null)
+				listener.nodeSettled(currentNode);
+
+			if (currentNode == destination) {
+				workspace.recordPath(graph, origin, destination);
+				return BreadthFirstSearch.finished(workspace, true, settled, relaxed);
+			}
+
+			for (int edge = graph.edgesBegin(currentNode); edge < graph.edgesEnd(currentNode); edge++) {
+				int outNeighbor = graph.edgeTarget(edge);
+				double distance = distances[currentNode] + graph.edgeWeight(edge);
+
+				if (reached[outNeighbor] != epoch || distance < distances[outNeighbor]) {
+					relaxed++;
+
+					if (listener != null)
+						relaxed(listener, currentNode, outNeighbor, distance, reached[outNeighbor] != epoch);
+
+					reached[outNeighbor] = epoch;
+					distances[outNeighbor] = distance;
+					parent[outNeighbor] = currentNode;
+					parentEdge[outNeighbor] = edge;
+					frontier.insertOrDecrease(outNeighbor, distance + heuristic(graph, outNeighbor, destination, heuristicScale));
+				}
+			}
+		}
+
+		return BreadthFirstSearch.finished(workspace, false, settled, relaxed);
+	}
+
+	private static void relaxed(TraversalListener listener, int origin, int destination, double cost, boolean firstReached) {
+		listener.edgeRelaxed(origin, destination, cost);
+
+		if (firstReached)
+			listener.nodeDiscovered(destination);
+	}
+
+	private static double heuristic(CompactGraph graph, int node, int destination, double heuristicScale) {
+
+		if (heuristicScale == 0.0)
+			return 0.0;
+
+		double xDistance = graph.xCoordinate(node) - graph.xCoordinate(destination);
+		double yDistance = graph.yCoordinate(node) - graph.yCoordinate(destination);
+
+		return heuristicScale * Math.sqrt(xDistance * xDistance + yDistance * yDistance);
+	}
+}
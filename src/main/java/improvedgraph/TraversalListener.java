@@ -0,0 +1,29 @@
+package improvedgraph;
+
+/**
+ * Observes a search as it runs, for instance to count how far each query
+ * expands or to replay a bad route step by step. Nodes are given by their ids
+ * in the graph being searched. Searches only call a listener when one has been
+ * registered. Having none still costs a null check wherever a call would be
+ * made, that is for every node discovered or settled and every edge relaxed.
+ */
+public interface TraversalListener {
+
+	// The search reached the node for the first time.
+	default void nodeDiscovered(int node) {
+	}
+
+	// The search expanded the node: its edges are about to be followed. Most searches expand a node only once, but an A*
+	// search whose heuristic scale overestimates some edges can find a cheaper way to a node it has already expanded,
+	// and then expands it again.
+	default void nodeSettled(int node) {
+	}
+
+	// The search found a better way to the destination through this edge. The cost is that of the best path to
+	// the destination known so far, except for breadth-first searches, which count hops but report NaN.
+	default void edgeRelaxed(int origin, int destination, double cost) {
+	}
+
+	default void searchFinished(boolean pathFound) {
+	}
+}
@@ -0,0 +1,36 @@
+package improvedgraph;
+
+import improvedgraph.util.DequeStack;
+import improvedgraph.util.Stack;
+
+public class WeightedPath {
+
+	private final Stack<GraphEdge> edges;
+	private final double cost;
+
+	WeightedPath(Stack<GraphEdge> edges, double cost) {
+		this.edges = edges;
+		this.cost = cost;
+	}
+
+	static WeightedPath unreachable() {
+		return new WeightedPath(new DequeStack<>(), Double.POSITIVE_INFINITY);
+	}
+
+	public Stack<GraphEdge> edges() {
+		return edges;
+	}
+
+	public double cost() {
+		return cost;
+	}
+
+	public boolean exists() {
+		return cost != Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public String toString() {
+		return "WeightedPath [cost=" + cost + ", edges=" + edges + "]";
+	}
+}
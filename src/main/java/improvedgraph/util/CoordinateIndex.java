@@ -0,0 +1,134 @@
+package improvedgraph.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a pair of coordinates to a non-negative int id.
+ * Coordinates are compared through their raw bit patterns, exactly like
+ * {@code GraphNode.equals}, so looking a node up neither boxes nor allocates.
+ */
+public class CoordinateIndex {
+
+	private static final int NO_ID = -1;
+
+	private long[] xBits;
+	private long[] yBits;
+	private int[] ids;
+	private int mask;
+	private int size;
+
+	public CoordinateIndex() {
+		this(16);
+	}
+
+	public CoordinateIndex(int expectedSize) {
+
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("You are trying to create a coordinate index with a negative expected size. Please, check it out.");
+
+		allocate(tableSizeFor(expectedSize));
+	}
+
+	public CoordinateIndex(CoordinateIndex toBeCopied) {
+		xBits = toBeCopied.xBits.clone();
+		yBits = toBeCopied.yBits.clone();
+		ids = toBeCopied.ids.clone();
+		mask = toBeCopied.mask;
+		size = toBeCopied.size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int get(double xCoordinate, double yCoordinate) {
+		long x = Double.doubleToLongBits(xCoordinate);
+		long y = Double.doubleToLongBits(yCoordinate);
+
+		for (int slot = slotFor(x, y);; slot = (slot + 1) & mask) {
+			int id = ids[slot];
+
+			if (id == NO_ID || (xBits[slot] == x && yBits[slot] == y))
+				return id;
+		}
+	}
+
+	public boolean contains(double xCoordinate, double yCoordinate) {
+		return get(xCoordinate, yCoordinate) != NO_ID;
+	}
+
+	// Returns the id already mapped to the coordinates, or -1 when the given id was stored.
+	public int putIfAbsent(double xCoordinate, double yCoordinate, int id) {
+
+		if (id < 0)
+			throw new IllegalArgumentException("You are trying to index the coordinates " + xCoordinate + ", " + yCoordinate
+					+ " under the negative id " + id + ". Only non-negative ids are allowed.");
+
+		long x = Double.doubleToLongBits(xCoordinate);
+		long y = Double.doubleToLongBits(yCoordinate);
+		int slot = slotFor(x, y);
+
+		for (; ids[slot] != NO_ID; slot = (slot + 1) & mask) {
+			if (xBits[slot] == x && yBits[slot] == y)
+				return ids[slot];
+		}
+
+		xBits[slot] = x;
+		yBits[slot] = y;
+		ids[slot] = id;
+
+		if (++size > (ids.length >>> 1) + (ids.length >>> 2))
+			rehash(ids.length << 1);
+
+		return NO_ID;
+	}
+
+	private int slotFor(long x, long y) {
+		long hash = x * 0x9E3779B97F4A7C15L + y;
+
+		hash ^= hash >>> 33;
+		hash *= 0xFF51AFD7ED558CCDL;
+		hash ^= hash >>> 33;
+
+		return (int) hash & mask;
+	}
+
+	private void allocate(int tableSize) {
+		xBits = new long[tableSize];
+		yBits = new long[tableSize];
+		ids = new int[tableSize];
+		mask = tableSize - 1;
+		Arrays.fill(ids, NO_ID);
+	}
+
+	private void rehash(int tableSize) {
+		long[] oldXBits = xBits;
+		long[] oldYBits = yBits;
+		int[] oldIds = ids;
+
+		allocate(tableSize);
+
+		for (int oldSlot = 0; oldSlot < oldIds.length; oldSlot++) {
+			if (oldIds[oldSlot] != NO_ID) {
+				int slot = slotFor(oldXBits[oldSlot], oldYBits[oldSlot]);
+
+				while (ids[slot] != NO_ID) {
+					slot = (slot + 1) & mask;
+				}
+
+				xBits[slot] = oldXBits[oldSlot];
+				yBits[slot] = oldYBits[oldSlot];
+				ids[slot] = oldIds[oldSlot];
+			}
+		}
+	}
+
+	private static int tableSizeFor(int expectedSize) {
+		long wanted = Math.max(4L, (long) expectedSize * 4 / 3 + 1);
+
+		if (wanted > (1 << 30))
+			throw new IllegalArgumentException("You are trying to create a coordinate index for " + expectedSize + " entries, which is more than it can hold.");
+
+		return Integer.highestOneBit((int) wanted - 1) << 1;
+	}
+}
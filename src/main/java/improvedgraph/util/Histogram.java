@@ -0,0 +1,136 @@
+package improvedgraph.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of non-negative longs in the spirit of HdrHistogram:
+ * values are counted in buckets whose width grows with their magnitude, so any
+ * value is known to within about 3%. Recording never locks, and threads write
+ * to one of several stripes picked by their id, so they seldom touch the same
+ * cache lines. Snapshots add the stripes up without stopping recording.
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray[] stripes;
+	private final int stripeMask;
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+	public Histogram() {
+		int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(16, Runtime.getRuntime().availableProcessors())) * 2 - 1);
+
+		stripes = new AtomicLongArray[stripeCount];
+		stripeMask = stripeCount - 1;
+
+		for (int stripe = 0; stripe < stripeCount; stripe++) {
+			stripes[stripe] = new AtomicLongArray(BUCKETS);
+		}
+	}
+
+	// Negative values are counted as zero.
+	public void record(long value) {
+		long recorded = Math.max(0L, value);
+
+		stripes[(int) Thread.currentThread().getId() & stripeMask].incrementAndGet(bucketOf(recorded));
+		sum.add(recorded);
+		max.accumulate(recorded);
+	}
+
+	static int bucketOf(long value) {
+
+		if (value < SUB_BUCKETS)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int block = exponent - SUB_BUCKET_BITS + 1;
+
+		return (block << SUB_BUCKET_BITS) + (int) ((value >>> (block - 1)) - SUB_BUCKETS);
+	}
+
+	// The largest value that falls in the bucket.
+	static long highestValueIn(int bucket) {
+
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+
+		int block = bucket >>> SUB_BUCKET_BITS;
+		long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << (block - 1);
+
+		return lowest + (1L << (block - 1)) - 1;
+	}
+
+	public Snapshot snapshot() {
+		long[] counts = new long[BUCKETS];
+		long count = 0;
+
+		for (AtomicLongArray stripe : stripes) {
+			for (int bucket = 0; bucket < BUCKETS; bucket++) {
+				long bucketCount = stripe.get(bucket);
+
+				counts[bucket] += bucketCount;
+				count += bucketCount;
+			}
+		}
+
+		return new Snapshot(counts, count, sum.sum(), max.get());
+	}
+
+	/**
+	 * Counts as they were when the snapshot was taken. Values recorded while it
+	 * was being taken may be missing from some figures and present in others.
+	 */
+	public static final class Snapshot {
+
+		private final long[] counts;
+		private final long count;
+		private final long sum;
+		private final long max;
+
+		private Snapshot(long[] counts, long count, long sum, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.sum = sum;
+			this.max = max;
+		}
+
+		public long count() {
+			return count;
+		}
+
+		public long max() {
+			return max;
+		}
+
+		public double mean() {
+			return count == 0 ? 0.0 : (double) sum / count;
+		}
+
+		// The value at or below which the given percentage of the recorded values fall, to within the bucket width.
+		public long percentile(double percentage) {
+
+			if (!(percentage >= 0.0 && percentage <= 100.0))
+				throw new IllegalArgumentException("You are trying to get the percentile " + percentage + ". Percentiles go from 0 to 100.");
+
+			if (count == 0)
+				return 0L;
+
+			long rank = Math.max(1L, (long) Math.ceil(percentage / 100.0 * count));
+			long seen = 0;
+
+			for (int bucket = 0; bucket < counts.length; bucket++) {
+				seen += counts[bucket];
+
+				if (seen >= rank)
+					return Math.min(max, highestValueIn(bucket));
+			}
+
+			return max;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package improvedgraph.util;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary min-heap over the int ids {@code [0, capacity)} keyed by doubles.
+ * Each id knows its slot in the heap, so membership and decrease-key are
+ * constant time and logarithmic time respectively.
+ */
+public class IndexedMinHeap {
+
+	private final int[] heap;
+	private final int[] positions;
+	private final double[] keys;
+	private int size;
+
+	public IndexedMinHeap(int capacity) {
+
+		if (capacity < 0)
+			throw new IllegalArgumentException("You are trying to create a heap with a negative capacity. Please, check it out.");
+
+		heap = new int[capacity];
+		positions = new int[capacity];
+		keys = new double[capacity];
+
+		Arrays.fill(positions, -1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public boolean contains(int id) {
+		return positions[id] != -1;
+	}
+
+	public double keyOf(int id) {
+		return keys[id];
+	}
+
+	public void insert(int id, double key) {
+
+		if (contains(id))
+			throw new IllegalArgumentException("You are trying to insert the id " + id + " that is already in the heap. Please, check it out.");
+
+		keys[id] = key;
+		heap[size] = id;
+		positions[id] = size;
+		siftUp(size++);
+	}
+
+	public void decreaseKey(int id, double key) {
+
+		if (!contains(id))
+			throw new IllegalArgumentException("You are trying to decrease the key of the id " + id + " that is not in the heap. Please, check it out.");
+
+		if (key > keys[id])
+			throw new IllegalArgumentException("You are trying to increase the key of the id " + id + " through decreaseKey. Please, check it out.");
+
+		keys[id] = key;
+		siftUp(positions[id]);
+	}
+
+	public void insertOrDecrease(int id, double key) {
+
+		if (contains(id))
+			decreaseKey(id, key);
+		else
+			insert(id, key);
+	}
+
+	public int peekMin() {
+
+		if (size == 0)
+			throw new NoSuchElementException("You are trying to peek into an empty heap.");
+
+		return heap[0];
+	}
+
+	public int removeMin() {
+
+		if (size == 0)
+			throw new NoSuchElementException("You are trying to remove from an empty heap.");
+
+		int min = heap[0];
+
+		positions[min] = -1;
+
+		if (--size > 0) {
+			heap[0] = heap[size];
+			positions[heap[0]] = 0;
+			siftDown(0);
+		}
+
+		return min;
+	}
+
+	public void clear() {
+
+		for (int i = 0; i < size; i++) {
+			positions[heap[i]] = -1;
+		}
+
+		size = 0;
+	}
+
+	private void siftUp(int slot) {
+		int id = heap[slot];
+		double key = keys[id];
+
+		while (slot > 0) {
+			int parentSlot = (slot - 1) >>> 1;
+			int parent = heap[parentSlot];
+
+			if (keys[parent] <= key)
+				break;
+
+			heap[slot] = parent;
+			positions[parent] = slot;
+			slot = parentSlot;
+		}
+
+		heap[slot] = id;
+		positions[id] = slot;
+	}
+
+	private void siftDown(int slot) {
+		int id = heap[slot];
+		double key = keys[id];
+		int half = size >>> 1;
+
+		while (slot < half) {
+			int childSlot = 2 * slot + 1;
+			int child = heap[childSlot];
+
+			if (childSlot + 1 < size && keys[heap[childSlot + 1]] < keys[child]) {
+				child = heap[++childSlot];
+			}
+
+			if (key <= keys[child])
+				break;
+
+			heap[slot] = child;
+			positions[child] = slot;
+			slot = childSlot;
+		}
+
+		heap[slot] = id;
+		positions[id] = slot;
+	}
+}
@@ -0,0 +1,348 @@
+package improvedgraph.util;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over points identified by non-negative int ids. Points are
+ * bucketed by the square cell of side {@code cellSize} they fall in, and
+ * nearest-neighbour queries search rings of cells outwards from the query
+ * until no unvisited cell can hold anything closer.
+ */
+public class SpatialIndex {
+
+	private static final int CELL_LIMIT = 1 << 29;
+
+	private final double cellSize;
+	private final CoordinateIndex cells = new CoordinateIndex();
+	private int[][] buckets = new int[16][];
+	private int[] bucketSizes = new int[16];
+	private int bucketCount;
+	private double[] xCoordinates = new double[16];
+	private double[] yCoordinates = new double[16];
+	private int size;
+	private int minCellX = Integer.MAX_VALUE;
+	private int maxCellX = Integer.MIN_VALUE;
+	private int minCellY = Integer.MAX_VALUE;
+	private int maxCellY = Integer.MIN_VALUE;
+
+	public SpatialIndex(double cellSize) {
+
+		if (!(cellSize > 0.0) || Double.isInfinite(cellSize))
+			throw new IllegalArgumentException("You are trying to create a spatial index with cells of size " + cellSize + ". The size must be a finite, positive number.");
+
+		this.cellSize = cellSize;
+	}
+
+	// Picks cells that hold about one point each when the points are spread evenly over the given bounds.
+	public static double cellSizeFor(double minX, double minY, double maxX, double maxY, int pointCount) {
+		double width = maxX - minX;
+		double height = maxY - minY;
+		double cellSize;
+
+		if (pointCount <= 1 || !(width > 0.0 || height > 0.0))
+			cellSize = 1.0;
+		else if (width > 0.0 && height > 0.0)
+			cellSize = Math.sqrt(width * height / pointCount);
+		else
+			cellSize = Math.max(width, height) / pointCount;
+
+		return cellSize > 0.0 && !Double.isInfinite(cellSize) ? cellSize : 1.0;
+	}
+
+	public double cellSize() {
+		return cellSize;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void add(int id, double xCoordinate, double yCoordinate) {
+
+		if (id < 0)
+			throw new IllegalArgumentException("You are trying to add a point with the negative id " + id + " to the spatial index. Only non-negative ids are allowed.");
+
+		if (id >= xCoordinates.length) {
+			int capacity = Math.max(id + 1, xCoordinates.length * 2);
+
+			xCoordinates = Arrays.copyOf(xCoordinates, capacity);
+			yCoordinates = Arrays.copyOf(yCoordinates, capacity);
+		}
+
+		xCoordinates[id] = xCoordinate;
+		yCoordinates[id] = yCoordinate;
+
+		int cellX = cellOf(xCoordinate);
+		int cellY = cellOf(yCoordinate);
+		int bucket = cells.get(cellX, cellY);
+
+		if (bucket == -1) {
+			bucket = newBucket();
+			cells.putIfAbsent(cellX, cellY, bucket);
+		}
+
+		if (bucketSizes[bucket] == buckets[bucket].length)
+			buckets[bucket] = Arrays.copyOf(buckets[bucket], buckets[bucket].length * 2);
+
+		buckets[bucket][bucketSizes[bucket]++] = id;
+		size++;
+
+		minCellX = Math.min(minCellX, cellX);
+		maxCellX = Math.max(maxCellX, cellX);
+		minCellY = Math.min(minCellY, cellY);
+		maxCellY = Math.max(maxCellY, cellY);
+	}
+
+	public int nearest(double xCoordinate, double yCoordinate) {
+
+		if (size == 0)
+			return -1;
+
+		int[] nearest = search(xCoordinate, yCoordinate, 1).sortedIds();
+
+		return nearest.length == 0 ? -1 : nearest[0];
+	}
+
+	public int[] nearest(double xCoordinate, double yCoordinate, int howMany) {
+
+		if (howMany < 0)
+			throw new IllegalArgumentException("You are trying to find " + howMany + " nearest points. Please, check it out.");
+
+		if (size == 0 || howMany == 0)
+			return new int[0];
+
+		return search(xCoordinate, yCoordinate, Math.min(howMany, size)).sortedIds();
+	}
+
+	public int[] within(double minX, double minY, double maxX, double maxY) {
+
+		if (!(minX <= maxX) || !(minY <= maxY))
+			throw new IllegalArgumentException("You are trying to search the box from " + minX + ", " + minY + " to " + maxX + ", " + maxY
+					+ ". The minimum corner must not exceed the maximum corner.");
+
+		int fromCellX = Math.max(cellOf(minX), minCellX);
+		int toCellX = Math.min(cellOf(maxX), maxCellX);
+		int fromCellY = Math.max(cellOf(minY), minCellY);
+		int toCellY = Math.min(cellOf(maxY), maxCellY);
+		Box box = new Box(minX, minY, maxX, maxY);
+
+		if (fromCellX > toCellX || fromCellY > toCellY)
+			return new int[0];
+
+		// Large boxes over sparse data are cheaper to answer bucket by bucket than cell by cell.
+		if ((long) (toCellX - fromCellX + 1) * (toCellY - fromCellY + 1) > bucketCount) {
+			for (int bucket = 0; bucket < bucketCount; bucket++) {
+				collect(bucket, box);
+			}
+
+		} else {
+			for (int cellY = fromCellY; cellY <= toCellY; cellY++) {
+				for (int cellX = fromCellX; cellX <= toCellX; cellX++) {
+					int bucket = cells.get(cellX, cellY);
+
+					if (bucket != -1)
+						collect(bucket, box);
+				}
+			}
+		}
+
+		return Arrays.copyOf(box.found, box.foundCount);
+	}
+
+	private void collect(int bucket, Box box) {
+
+		for (int i = 0; i < bucketSizes[bucket]; i++) {
+			int id = buckets[bucket][i];
+
+			if (xCoordinates[id] >= box.minX && xCoordinates[id] <= box.maxX && yCoordinates[id] >= box.minY && yCoordinates[id] <= box.maxY) {
+				if (box.foundCount == box.found.length)
+					box.found = Arrays.copyOf(box.found, box.foundCount * 2);
+
+				box.found[box.foundCount++] = id;
+			}
+		}
+	}
+
+	private Candidates search(double xCoordinate, double yCoordinate, int howMany) {
+		Candidates candidates = new Candidates(howMany);
+		int cellX = cellOf(xCoordinate);
+		int cellY = cellOf(yCoordinate);
+		int firstRing = Math.max(Math.max(minCellX - cellX, cellX - maxCellX), Math.max(minCellY - cellY, cellY - maxCellY));
+		int lastRing = Math.max(Math.max(Math.abs(cellX - minCellX), Math.abs(cellX - maxCellX)),
+				Math.max(Math.abs(cellY - minCellY), Math.abs(cellY - maxCellY)));
+
+		for (int ring = Math.max(0, firstRing); ring <= lastRing; ring++) {
+			scanRing(cellX, cellY, ring, xCoordinate, yCoordinate, candidates);
+
+			// Anything in the rings still to come lies at least this far from the query.
+			double reach = ring * cellSize;
+
+			if (candidates.isFull() && candidates.worstDistance() <= reach * reach)
+				break;
+		}
+
+		return candidates;
+	}
+
+	private void scanRing(int cellX, int cellY, int ring, double xCoordinate, double yCoordinate, Candidates candidates) {
+		int fromCellX = Math.max(cellX - ring, minCellX);
+		int toCellX = Math.min(cellX + ring, maxCellX);
+
+		for (int row = -1; row <= 1; row += 2) {
+			int rowCellY = cellY + row * ring;
+
+			if (rowCellY >= minCellY && rowCellY <= maxCellY) {
+				for (int x = fromCellX; x <= toCellX; x++) {
+					scanCell(x, rowCellY, xCoordinate, yCoordinate, candidates);
+				}
+			}
+
+			if (ring == 0)
+				return;
+		}
+
+		int fromCellY = Math.max(cellY - ring + 1, minCellY);
+		int toCellY = Math.min(cellY + ring - 1, maxCellY);
+
+		for (int column = -1; column <= 1; column += 2) {
+			int columnCellX = cellX + column * ring;
+
+			if (columnCellX >= minCellX && columnCellX <= maxCellX) {
+				for (int y = fromCellY; y <= toCellY; y++) {
+					scanCell(columnCellX, y, xCoordinate, yCoordinate, candidates);
+				}
+			}
+		}
+	}
+
+	private void scanCell(int cellX, int cellY, double xCoordinate, double yCoordinate, Candidates candidates) {
+		int bucket = cells.get(cellX, cellY);
+
+		if (bucket == -1)
+			return;
+
+		for (int i = 0; i < bucketSizes[bucket]; i++) {
+			int id = buckets[bucket][i];
+			double xDistance = xCoordinates[id] - xCoordinate;
+			double yDistance = yCoordinates[id] - yCoordinate;
+
+			candidates.offer(id, xDistance * xDistance + yDistance * yDistance);
+		}
+	}
+
+	private int cellOf(double coordinate) {
+		double cell = Math.floor(coordinate / cellSize);
+
+		if (cell != cell)
+			return 0;
+
+		return (int) Math.max(-CELL_LIMIT, Math.min(CELL_LIMIT, cell));
+	}
+
+	private int newBucket() {
+
+		if (bucketCount == buckets.length) {
+			buckets = Arrays.copyOf(buckets, bucketCount * 2);
+			bucketSizes = Arrays.copyOf(bucketSizes, bucketCount * 2);
+		}
+
+		buckets[bucketCount] = new int[4];
+
+		return bucketCount++;
+	}
+
+	private static final class Box {
+
+		private final double minX;
+		private final double minY;
+		private final double maxX;
+		private final double maxY;
+		private int[] found = new int[16];
+		private int foundCount;
+
+		Box(double minX, double minY, double maxX, double maxY) {
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+		}
+	}
+
+	// Bounded max-heap of squared distances, so the worst candidate is always at the root.
+	private static final class Candidates {
+
+		private final int[] ids;
+		private final double[] distances;
+		private int size;
+
+		Candidates(int capacity) {
+			ids = new int[capacity];
+			distances = new double[capacity];
+		}
+
+		boolean isFull() {
+			return size == ids.length;
+		}
+
+		double worstDistance() {
+			return distances[0];
+		}
+
+		void offer(int id, double distance) {
+
+			if (!(distance == distance))
+				return;
+
+			if (size < ids.length) {
+				int slot = size++;
+
+				while (slot > 0 && distances[(slot - 1) >>> 1] < distance) {
+					ids[slot] = ids[(slot - 1) >>> 1];
+					distances[slot] = distances[(slot - 1) >>> 1];
+					slot = (slot - 1) >>> 1;
+				}
+
+				ids[slot] = id;
+				distances[slot] = distance;
+
+			} else if (distance < distances[0]) {
+				siftDown(id, distance, size);
+			}
+		}
+
+		private void siftDown(int id, double distance, int heapSize) {
+			int slot = 0;
+
+			while (2 * slot + 1 < heapSize) {
+				int childSlot = 2 * slot + 1;
+
+				if (childSlot + 1 < heapSize && distances[childSlot + 1] > distances[childSlot])
+					childSlot++;
+
+				if (distances[childSlot] <= distance)
+					break;
+
+				ids[slot] = ids[childSlot];
+				distances[slot] = distances[childSlot];
+				slot = childSlot;
+			}
+
+			ids[slot] = id;
+			distances[slot] = distance;
+		}
+
+		int[] sortedIds() {
+
+			for (int heapSize = size - 1; heapSize > 0; heapSize--) {
+				int worstId = ids[0];
+				double worstDistance = distances[0];
+
+				siftDown(ids[heapSize], distances[heapSize], heapSize);
+				ids[heapSize] = worstId;
+				distances[heapSize] = worstDistance;
+			}
+
+			return Arrays.copyOf(ids, size);
+		}
+	}
+}
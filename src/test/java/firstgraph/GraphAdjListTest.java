@@ -1,6 +1,14 @@
 package firstgraph;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -81,4 +89,194 @@ public class GraphAdjListTest {
 //		Assert.assertEquals(expected, actualPath);
 	}
 
+	@Test
+	public void inNeighborsAreTheOriginsOfTheEdgesEndingAtAVertex() {
+		adjListGraph.addEdge(0, 1);
+		adjListGraph.addEdge(2, 1);
+		adjListGraph.addEdge(1, 3);
+		adjListGraph.addEdge(2, 1);
+
+		assertThat(adjListGraph.getInNeighbors(1), is(Arrays.asList(0, 2, 2)));
+		assertThat(adjListGraph.getInNeighbors(3), is(Arrays.asList(1)));
+		assertThat(adjListGraph.getInNeighbors(0).isEmpty(), is(true));
+	}
+
+	@Test
+	public void inNeighborsCannotBeChangedFromOutsideTheGraph() {
+		adjListGraph.addEdge(0, 1);
+
+		adjListGraph.getInNeighbors(1).add(7);
+
+		assertThat(adjListGraph.getInNeighbors(1), is(Arrays.asList(0)));
+	}
+
+	@Test(timeout = 10000)
+	public void theDegreeSequenceOfALargeGraphIsComputedInLinearTime() {
+		GraphAdjList largeGraph = new GraphAdjList();
+		int vertexCount = 200_000;
+
+		for (int v = 0; v < vertexCount; v++) {
+			largeGraph.addVertex();
+		}
+
+		for (int v = 1; v < vertexCount; v++) {
+			largeGraph.addEdge(0, v);
+			largeGraph.addEdge(v, (v + 1) % vertexCount);
+		}
+
+		List<Integer> degreeSequence = largeGraph.degreeSequence();
+
+		assertThat(degreeSequence.size(), is(vertexCount));
+		assertThat(degreeSequence.get(0), is(vertexCount));
+		assertThat(degreeSequence.get(vertexCount - 1), is(2));
+	}
+
+	@Test
+	public void distinctTwoHopNeighborsAreListedOnceInTheOrderTheyAreReached() {
+		adjListGraph.addEdge(0, 1);
+		adjListGraph.addEdge(0, 2);
+		adjListGraph.addEdge(1, 3);
+		adjListGraph.addEdge(1, 0);
+		adjListGraph.addEdge(2, 3);
+		adjListGraph.addEdge(2, 4);
+
+		assertThat(adjListGraph.getDistance2(0), is(Arrays.asList(3, 0, 3, 4)));
+		assertThat(adjListGraph.getDistinctDistance2(0), is(Arrays.asList(3, 0, 4)));
+		assertThat(adjListGraph.getDistinctDistance2(0), is(Arrays.asList(3, 0, 4)));
+		assertThat(adjListGraph.getDistinctDistance2(5).isEmpty(), is(true));
+	}
+
+	@Test
+	public void theParallelTwoHopNeighborhoodsMatchTheSequentialOnes() {
+		GraphAdjList randomGraph = new GraphAdjList();
+		Random random = new Random(13);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		for (int v = 0; v < 2_000; v++) {
+			randomGraph.addVertex();
+		}
+
+		for (int edge = 0; edge < 20_000; edge++) {
+			randomGraph.addEdge(random.nextInt(2_000), random.nextInt(2_000));
+		}
+
+		try {
+			List<List<Integer>> twoHopsNeighborhoods = randomGraph.getAllDistinctDistance2(pool);
+
+			assertThat(twoHopsNeighborhoods.size(), is(2_000));
+
+			for (int v = 0; v < 2_000; v++) {
+				assertThat(twoHopsNeighborhoods.get(v), is(new ArrayList<>(new LinkedHashSet<>(randomGraph.getDistance2(v)))));
+			}
+
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private void addTheSampleEdges() {
+		adjListGraph.addEdge(0, 1);
+		adjListGraph.addEdge(1, 0);
+		adjListGraph.addEdge(1, 2);
+		adjListGraph.addEdge(2, 1);
+		adjListGraph.addEdge(1, 3);
+		adjListGraph.addEdge(3, 1);
+		adjListGraph.addEdge(3, 4);
+		adjListGraph.addEdge(4, 3);
+		adjListGraph.addEdge(4, 0);
+		adjListGraph.addEdge(0, 4);
+		adjListGraph.addEdge(0, 5);
+		adjListGraph.addEdge(5, 0);
+		adjListGraph.addEdge(5, 6);
+		adjListGraph.addEdge(6, 5);
+	}
+
+	@Test
+	public void theDepthFirstSearchReturnsThePathItFound() {
+		addTheSampleEdges();
+
+		assertThat(adjListGraph.searchDeep(0, 6, actualPath), is(true));
+		assertThat(actualPath, is(Arrays.asList(0, 5, 6)));
+		assertThat(adjListGraph.depthFirstPath(2, 4), is(new int[] { 2, 1, 0, 4 }));
+	}
+
+	@Test
+	public void theParentMapPointsEachDiscoveredVertexBackToWhereItWasDiscoveredFrom() {
+		addTheSampleEdges();
+
+		Map<Integer, Integer> parent = adjListGraph.searchDeep(0, 6);
+
+		assertThat(parent.get(6), is(5));
+		assertThat(parent.get(5), is(0));
+		assertThat(parent.get(4), is(3));
+		assertThat(parent.containsKey(0), is(false));
+		assertThat(parent.containsKey(7), is(false));
+	}
+
+	@Test
+	public void theDepthFirstSearchReportsUnreachableGoals() {
+		addTheSampleEdges();
+
+		assertThat(adjListGraph.searchDeep(0, 7, actualPath), is(false));
+		assertThat(actualPath.isEmpty(), is(true));
+		assertThat(adjListGraph.depthFirstPath(7, 7), is(new int[] { 7 }));
+	}
+
+	@Test(timeout = 10000)
+	public void theDepthFirstSearchFollowsLongChainsWithoutOverflowingTheStack() {
+		GraphAdjList chain = new GraphAdjList();
+		int vertexCount = 2_000_000;
+
+		for (int v = 0; v < vertexCount; v++) {
+			chain.addVertex();
+		}
+
+		for (int v = 1; v < vertexCount; v++) {
+			chain.addEdge(v - 1, v);
+		}
+
+		int[] path = chain.depthFirstPath(0, vertexCount - 1);
+
+		assertThat(path.length, is(vertexCount));
+		assertThat(path[vertexCount - 1], is(vertexCount - 1));
+	}
+
+	@Test
+	public void theDegreeHistogramCountsTheVerticesOfEachDegree() {
+		addTheSampleEdges();
+
+		assertThat(adjListGraph.degrees(), is(new int[] { 6, 6, 2, 4, 4, 4, 2, 0 }));
+		assertThat(adjListGraph.degreeHistogram(), is(new int[] { 1, 0, 2, 0, 3, 0, 2 }));
+		assertThat(adjListGraph.sortedDegrees(), is(new int[] { 6, 6, 4, 4, 4, 2, 2, 0 }));
+		assertThat(adjListGraph.degreeSequence(), is(Arrays.asList(6, 6, 4, 4, 4, 2, 2, 0)));
+	}
+
+	@Test
+	public void theParallelDegreeSequenceMatchesTheSequentialOne() {
+		GraphAdjList randomGraph = new GraphAdjList();
+		Random random = new Random(17);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		for (int v = 0; v < 10_000; v++) {
+			randomGraph.addVertex();
+		}
+
+		for (int edge = 0; edge < 50_000; edge++) {
+			randomGraph.addEdge(random.nextInt(10_000), random.nextInt(100));
+		}
+
+		try {
+			assertThat(randomGraph.degreeHistogram(pool), is(randomGraph.degreeHistogram()));
+			assertThat(randomGraph.sortedDegrees(pool), is(randomGraph.sortedDegrees()));
+
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void anEmptyGraphHasAnEmptyDegreeHistogram() {
+		assertThat(new GraphAdjList().degreeHistogram().length, is(0));
+		assertThat(new GraphAdjList().degreeSequence().isEmpty(), is(true));
+	}
 }
@@ -0,0 +1,105 @@
+package firstgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphAdjMatrixTest {
+
+	private GraphAdjMatrix matrixGraph;
+	private GraphAdjList adjListGraph;
+
+	@Before
+	public void setUp() throws Exception {
+		matrixGraph = new GraphAdjMatrix();
+		adjListGraph = new GraphAdjList();
+	}
+
+	private void addVertices(int count) {
+
+		for (int v = 0; v < count; v++) {
+			matrixGraph.addVertex();
+			adjListGraph.addVertex();
+		}
+	}
+
+	private void addEdge(int v, int w) {
+		matrixGraph.addEdge(v, w);
+		adjListGraph.addEdge(v, w);
+	}
+
+	private static List<Integer> distinctSorted(List<Integer> vertices) {
+		return Arrays.asList(new TreeSet<>(vertices).toArray(new Integer[0]));
+	}
+
+	@Test
+	public void edgesAreRecordedInBothDirections() {
+		addVertices(3);
+		addEdge(0, 2);
+		addEdge(1, 2);
+
+		assertThat(matrixGraph.hasEdge(0, 2), is(true));
+		assertThat(matrixGraph.hasEdge(2, 0), is(false));
+		assertThat(matrixGraph.getNeighbors(0), is(Arrays.asList(2)));
+		assertThat(matrixGraph.getInNeighbors(2), is(Arrays.asList(0, 1)));
+		assertThat(matrixGraph.inDegree(2), is(2));
+	}
+
+	@Test
+	public void repeatedEdgesAreCountedButStoredOnce() {
+		addVertices(2);
+		addEdge(0, 1);
+		addEdge(0, 1);
+
+		assertThat(matrixGraph.getNumEdges(), is(2));
+		assertThat(matrixGraph.outDegree(0), is(1));
+	}
+
+	@Test
+	public void theMatrixGraphAgreesWithTheAdjacencyListGraphOnADenseGraph() {
+		Random random = new Random(3);
+
+		// Crosses several 64-bit words and forces the matrix to grow.
+		addVertices(300);
+
+		for (int v = 0; v < 300; v++) {
+			for (int w = 0; w < 300; w++) {
+				if (random.nextInt(4) == 0)
+					addEdge(v, w);
+			}
+		}
+
+		for (int v = 0; v < 300; v++) {
+			assertThat(matrixGraph.getNeighbors(v), is(adjListGraph.getNeighbors(v)));
+			assertThat(matrixGraph.getInNeighbors(v), is(adjListGraph.getInNeighbors(v)));
+			assertThat(matrixGraph.getDistance2(v), is(distinctSorted(adjListGraph.getDistance2(v))));
+			assertThat(matrixGraph.countDistance2(v), is(matrixGraph.getDistance2(v).size()));
+		}
+
+		assertThat(matrixGraph.degreeSequence(), is(adjListGraph.degreeSequence()));
+		assertThat(matrixGraph.getAllDistinctDistance2().get(7), is(matrixGraph.getDistance2(7)));
+	}
+
+	@Test
+	public void verticesOutsideTheGraphAreRefused() {
+		addVertices(2);
+
+		try {
+			matrixGraph.hasEdge(0, 2);
+
+			fail("Trying to look up an edge to a vertex outside the graph should throw an IndexOutOfBoundsException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IndexOutOfBoundsException.class));
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package firstgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphIntAdjListTest {
+
+	private GraphIntAdjList intGraph;
+	private GraphAdjList adjListGraph;
+
+	@Before
+	public void setUp() throws Exception {
+		intGraph = new GraphIntAdjList();
+		adjListGraph = new GraphAdjList();
+
+		for (int v = 0; v < 8; v++) {
+			intGraph.addVertex();
+			adjListGraph.addVertex();
+		}
+	}
+
+	private void addEdge(int v, int w) {
+		intGraph.addEdge(v, w);
+		adjListGraph.addEdge(v, w);
+	}
+
+	@Test
+	public void neighborsAreKeptInTheOrderTheEdgesWereAdded() {
+		addEdge(0, 3);
+		addEdge(0, 1);
+		addEdge(0, 3);
+
+		assertThat(intGraph.getNeighbors(0), is(Arrays.asList(3, 1, 3)));
+		assertThat(intGraph.outDegree(0), is(3));
+		assertThat(intGraph.neighbor(0, 1), is(1));
+		assertThat(intGraph.getInNeighbors(3), is(Arrays.asList(0, 0)));
+		assertThat(intGraph.inNeighbor(1, 0), is(0));
+	}
+
+	@Test
+	public void theIntGraphAgreesWithTheAdjacencyListGraph() {
+		Random random = new Random(5);
+
+		for (int edge = 0; edge < 40; edge++) {
+			addEdge(random.nextInt(8), random.nextInt(8));
+		}
+
+		for (int v = 0; v < 8; v++) {
+			assertThat(intGraph.getNeighbors(v), is(adjListGraph.getNeighbors(v)));
+			assertThat(intGraph.getInNeighbors(v), is(adjListGraph.getInNeighbors(v)));
+			assertThat(intGraph.getDistance2(v), is(adjListGraph.getDistance2(v)));
+			assertThat(intGraph.getDistinctDistance2(v), is(adjListGraph.getDistinctDistance2(v)));
+		}
+
+		assertThat(intGraph.degreeSequence(), is(adjListGraph.degreeSequence()));
+		assertThat(intGraph.adjacencyString(), is(adjListGraph.adjacencyString()));
+	}
+
+	@Test
+	public void theNeighborViewIsReadOnlyAndUnaffectedByLaterEdges() {
+		addEdge(2, 4);
+
+		List<Integer> neighbors = intGraph.getNeighbors(2);
+
+		addEdge(2, 5);
+
+		assertThat(neighbors, is(Arrays.asList(4)));
+
+		try {
+			neighbors.add(6);
+
+			fail("Trying to change a neighbor view should throw an UnsupportedOperationException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(UnsupportedOperationException.class));
+		}
+	}
+
+	@Test
+	public void verticesOutsideTheGraphAreRefused() {
+
+		try {
+			intGraph.getNeighbors(8);
+
+			fail("Trying to get the neighbors of a vertex outside the graph should throw an IndexOutOfBoundsException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IndexOutOfBoundsException.class));
+		}
+	}
+
+	@Test
+	public void theGraphGrowsPastItsExpectedSize() {
+		GraphIntAdjList smallGraph = new GraphIntAdjList(1);
+
+		for (int v = 0; v < 100; v++) {
+			smallGraph.addVertex();
+		}
+
+		smallGraph.addEdge(99, 0);
+
+		assertThat(smallGraph.getNumVertices(), is(100));
+		assertThat(smallGraph.getInNeighbors(0), is(Arrays.asList(99)));
+	}
+}
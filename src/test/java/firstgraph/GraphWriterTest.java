@@ -0,0 +1,86 @@
+package firstgraph;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphWriterTest {
+
+	private GraphAdjList graph;
+
+	@Before
+	public void setUp() throws Exception {
+		graph = new GraphAdjList();
+
+		for (int v = 0; v < 4; v++) {
+			graph.addVertex();
+		}
+
+		graph.addEdge(0, 1);
+		graph.addEdge(0, 2);
+		graph.addEdge(2, 3);
+		graph.addEdge(3, 0);
+	}
+
+	@Test
+	public void theEdgeListHasOneLinePerEdge() throws IOException {
+		StringWriter writer = new StringWriter();
+
+		GraphWriter.writeEdgeList(graph, writer);
+
+		assertThat(writer.toString(), is("0 1\n0 2\n2 3\n3 0\n"));
+	}
+
+	@Test
+	public void theDotOutputDeclaresEveryVertexAndEdge() throws IOException {
+		StringWriter writer = new StringWriter();
+
+		GraphWriter.writeDot(graph, writer);
+
+		assertThat(writer.toString(), is("digraph G {\n\t0;\n\t0 -> 1;\n\t0 -> 2;\n\t1;\n\t2;\n\t2 -> 3;\n\t3;\n\t3 -> 0;\n}\n"));
+	}
+
+	@Test
+	public void theBinaryOutputLaysTheAdjacencyListsOutAsCompressedSparseRows() throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		GraphWriter.writeBinary(graph, stream);
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(stream.toByteArray()));
+		int[] expected = { GraphWriter.BINARY_MAGIC, GraphWriter.BINARY_VERSION, 4, 4, 0, 2, 2, 3, 4, 1, 2, 3, 0 };
+
+		assertThat(stream.size(), is(expected.length * 4));
+
+		for (int value : expected) {
+			assertThat(in.readInt(), is(value));
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void largeGraphsAreWrittenInLinearTime() throws IOException {
+		GraphIntAdjList largeGraph = new GraphIntAdjList();
+		int vertexCount = 500_000;
+
+		for (int v = 0; v < vertexCount; v++) {
+			largeGraph.addVertex();
+		}
+
+		for (int v = 1; v < vertexCount; v++) {
+			largeGraph.addEdge(v - 1, v);
+		}
+
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		GraphWriter.writeBinary(largeGraph, stream);
+
+		assertThat(stream.size(), is(4 * (4 + vertexCount + 1 + vertexCount - 1)));
+	}
+}
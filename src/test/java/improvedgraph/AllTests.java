@@ -4,8 +4,15 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
+import improvedgraph.util.CoordinateIndexTest;
+import improvedgraph.util.HistogramTest;
+import improvedgraph.util.IndexedMinHeapTest;
+import improvedgraph.util.SpatialIndexTest;
+
 @RunWith(Suite.class)
-@SuiteClasses({ GraphEdgeTest.class, GraphNodeTest.class, GraphTest.class })
+@SuiteClasses({ GraphEdgeTest.class, GraphNodeTest.class, GraphTest.class, CompactGraphTest.class, ContractionHierarchyTest.class, GraphWriterTest.class, GraphLoaderTest.class, LiveGraphTest.class, ConcurrentGraphBuilderTest.class, SearchWorkspaceTest.class,
+		IndexedMinHeapTest.class, CoordinateIndexTest.class,
+		SpatialIndexTest.class, HistogramTest.class })
 public class AllTests {
 
 }
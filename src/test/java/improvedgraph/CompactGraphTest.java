@@ -0,0 +1,661 @@
+package improvedgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import improvedgraph.util.Stack;
+
+public class CompactGraphTest {
+
+	private GraphNode a;
+	private GraphNode b;
+	private GraphNode c;
+	private GraphNode d;
+	private GraphNode e;
+	private Graph graph;
+	private CompactGraph compactGraph;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void setUp() throws Exception {
+		Fixtures.Roads roads = new Fixtures.Roads();
+
+		a = roads.a;
+		b = roads.b;
+		c = roads.c;
+		d = roads.d;
+		e = roads.e;
+		graph = roads.graph;
+
+		compactGraph = graph.freeze();
+	}
+
+	@Test
+	public void allNodesAndEdgesOfTheGraphAreFrozen() {
+		assertThat(compactGraph.nodeCount(), is(5));
+		assertThat(compactGraph.edgeCount(), is(5));
+		graph.nodes().forEach(node -> assertThat(compactGraph.node(compactGraph.idOf(node)), is(node)));
+	}
+
+	@Test
+	public void theOutEdgesOfEachNodeAreLaidOutContiguouslyAndSortedByTarget() {
+		int origin = compactGraph.idOf(a);
+
+		assertThat(compactGraph.outDegree(origin), is(2));
+		assertThat(compactGraph.edgesEnd(origin) - compactGraph.edgesBegin(origin), is(2));
+		assertThat(compactGraph.edgeTarget(compactGraph.edgesBegin(origin)) < compactGraph.edgeTarget(compactGraph.edgesBegin(origin) + 1), is(true));
+		assertThat(compactGraph.outDegree(compactGraph.idOf(c)), is(0));
+	}
+
+	@Test
+	public void edgesAreMaterializedWithTheirWeightAndType() {
+		int origin = compactGraph.idOf(a);
+
+		for (int edge = compactGraph.edgesBegin(origin); edge < compactGraph.edgesEnd(origin); edge++) {
+			GraphEdge graphEdge = compactGraph.edge(origin, edge);
+
+			assertThat(graphEdge.origin(), is(a));
+			assertThat(graphEdge.weight(), is(graphEdge.destination().equals(b) ? 10.0 : 1.0));
+			assertThat(graphEdge.type(), is(EdgeType.STREET));
+		}
+	}
+
+	@Test
+	public void unknownNodesHaveNoId() {
+		assertThat(compactGraph.idOf(new GraphNode(9.0, 9.0)), is(-1));
+		assertThat(compactGraph.contains(null), is(false));
+	}
+
+	@Test
+	public void theSnapshotIsNotAffectedByLaterChangesToTheGraph() {
+		graph.removeTheEdgeBetweenTheFollowingNodes(a, b);
+
+		assertThat(compactGraph.edgeCount(), is(5));
+		assertThat(graph.freeze().edgeCount(), is(4));
+	}
+
+	@Test
+	public void theNavigatorReturnsThePathWithTheFewestHops() {
+		Stack<GraphEdge> shortestPath = compactGraph.navigate(a, c);
+
+		assertThat(shortestPath.pop(), is(new GraphEdge(a, b)));
+		assertThat(shortestPath.pop(), is(new GraphEdge(b, c)));
+	}
+
+	@Test
+	public void theNavigatorAgreesWithTheObjectGraph() {
+		Stack<GraphEdge> expected = graph.navigate(a, e);
+		Stack<GraphEdge> actual = compactGraph.navigate(a, e);
+
+		assertThat(actual.pop(), is(expected.pop()));
+		assertThat(actual.pop(), is(expected.pop()));
+	}
+
+	@Test
+	public void anExceptionIsThrownWhenTheNavigatorIsAskedToNavigateFromAnInexistentNode() {
+		Stack<GraphEdge> shortestPath = null;
+
+		try {
+			shortestPath = compactGraph.navigate(new GraphNode(0.0, 0.1), c);
+
+			fail("Trying to navigate from an inexistent origin should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is(
+					"You are trying to navigate from an origin that is not in the graph. Please, check it out."));
+			assertThat(shortestPath == null, is(true));
+		}
+	}
+
+	@Test
+	public void anExceptionIsThrownWhenTheNavigatorIsAskedToNavigateBetweenIdsOutsideTheGraph() {
+		int outside = compactGraph.nodeCount();
+
+		try {
+			compactGraph.navigate(compactGraph.idOf(a), outside);
+
+			fail("Trying to navigate to an id outside the graph should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is(
+					"You are trying to search from or to the node " + outside + ", which is not in the graph. Please, check it out."));
+		}
+
+		try {
+			compactGraph.navigateBidirectionally(-1, compactGraph.idOf(c));
+
+			fail("Trying to navigate from an id outside the graph should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+
+		try {
+			compactGraph.navigateByWeight(outside, compactGraph.idOf(c));
+
+			fail("Trying to navigate from an id outside the graph should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+
+	@Test
+	public void edgesLeadingOutOfTheGraphPreventItFromBeingFrozen() {
+		a.addEdgeTo(new GraphNode(7.0, 7.0));
+
+		try {
+			graph.freeze();
+
+			fail("Trying to freeze a graph with edges leading out of it should throw an IllegalStateException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalStateException.class));
+		}
+	}
+
+	@Test
+	public void theWeightedNavigatorReturnsTheCheapestPathAndItsCost() {
+		WeightedPath cheapestPath = compactGraph.navigateByWeight(a, c);
+
+		assertThat(cheapestPath.cost(), is(3.0));
+		assertThat(cheapestPath.edges().size(), is(3));
+		assertThat(cheapestPath.edges().pop(), is(new GraphEdge(a, d)));
+		assertThat(cheapestPath.edges().pop(), is(new GraphEdge(d, e)));
+		assertThat(cheapestPath.edges().pop(), is(new GraphEdge(e, c)));
+	}
+
+	@Test
+	public void theWeightedNavigatorReportsUnreachableDestinations() {
+		WeightedPath cheapestPath = compactGraph.navigateByWeight(c, a);
+
+		assertThat(cheapestPath.exists(), is(false));
+		assertThat(cheapestPath.edges().isEmpty(), is(true));
+	}
+
+	@Test
+	public void navigatingByWeightToTheOriginCostsNothing() {
+		WeightedPath cheapestPath = compactGraph.navigateByWeight(a, a);
+
+		assertThat(cheapestPath.exists(), is(true));
+		assertThat(cheapestPath.cost(), is(0.0));
+		assertThat(cheapestPath.edges().isEmpty(), is(true));
+	}
+
+	@Test
+	public void negativeWeightsAreRefusedByTheWeightedNavigator() {
+		a.getEdgeTo(b).weight(-1.0);
+
+		try {
+			graph.freeze().navigateByWeight(a, c);
+
+			fail("Trying to navigate by weight with negative weights should throw an IllegalStateException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalStateException.class));
+			assertThat(e.getMessage(), is(
+					"You are trying to navigate by weight on a graph with negative edge weights. Only non-negative weights are supported."));
+		}
+	}
+
+	@Test
+	public void theHeuristicNavigatorFindsPathsAsCheapAsTheWeightedNavigator() {
+		CompactGraph kitsilano = Maps.load("/maps/kitsilanotest.map").freeze();
+
+		for (int origin = 0; origin < kitsilano.nodeCount(); origin += 7) {
+			for (int destination = 0; destination < kitsilano.nodeCount(); destination += 5) {
+				WeightedPath cheapestPath = kitsilano.navigateByWeight(origin, destination);
+				WeightedPath guidedPath = kitsilano.navigateByWeight(origin, destination, 0.5);
+
+				assertThat(guidedPath.cost(), is(cheapestPath.cost()));
+				assertThat(guidedPath.edges().size() > 0, is(cheapestPath.edges().size() > 0));
+			}
+		}
+	}
+
+	@Test
+	public void invalidHeuristicScalesAreRefused() {
+
+		try {
+			compactGraph.navigateByWeight(a, c, -1.0);
+
+			fail("Trying to navigate with a negative heuristic scale should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is(
+					"You are trying to navigate with a heuristic scale of -1.0. The scale must be a finite, non-negative number."));
+		}
+	}
+
+	@Test
+	public void theInEdgesOfEachNodePointBackToTheirOrigins() {
+		int destination = compactGraph.idOf(c);
+
+		assertThat(compactGraph.inDegree(destination), is(2));
+		assertThat(compactGraph.inDegree(compactGraph.idOf(a)), is(0));
+
+		for (int slot = compactGraph.inEdgesBegin(destination); slot < compactGraph.inEdgesEnd(destination); slot++) {
+			int edge = compactGraph.inEdge(slot);
+
+			assertThat(compactGraph.edgeTarget(edge), is(destination));
+			assertThat(compactGraph.edge(compactGraph.inEdgeOrigin(slot), edge).destination(), is(c));
+		}
+	}
+
+	@Test
+	public void theBidirectionalNavigatorReturnsThePathWithTheFewestHops() {
+		Stack<GraphEdge> shortestPath = compactGraph.navigateBidirectionally(a, c);
+
+		assertThat(shortestPath.size(), is(2));
+		assertThat(shortestPath.pop(), is(new GraphEdge(a, b)));
+		assertThat(shortestPath.pop(), is(new GraphEdge(b, c)));
+		assertThat(compactGraph.navigateBidirectionally(c, a).isEmpty(), is(true));
+		assertThat(compactGraph.navigateBidirectionally(a, a).isEmpty(), is(true));
+	}
+
+	@Test
+	public void theBidirectionalNavigatorAgreesWithTheNavigatorOnHopCounts() {
+		CompactGraph kitsilano = Maps.load("/maps/kitsilanotest.map").freeze();
+
+		for (int origin = 0; origin < kitsilano.nodeCount(); origin += 3) {
+			for (int destination = 0; destination < kitsilano.nodeCount(); destination += 2) {
+				Stack<GraphEdge> shortestPath = kitsilano.navigateBidirectionally(origin, destination);
+
+				assertThat(shortestPath.size(), is(kitsilano.navigate(origin, destination).size()));
+
+				GraphNode currentNode = kitsilano.node(origin);
+
+				for (GraphEdge edge : shortestPath) {
+					assertThat(edge.origin(), is(currentNode));
+					currentNode = edge.destination();
+				}
+
+				if (!shortestPath.isEmpty())
+					assertThat(currentNode, is(kitsilano.node(destination)));
+			}
+		}
+	}
+
+	private CompactGraph writtenAndOpened(CompactGraph graph) throws IOException {
+		Path file = folder.newFile().toPath();
+
+		try (OutputStream stream = Files.newOutputStream(file)) {
+			GraphWriter.writeBinary(graph, stream);
+		}
+
+		return CompactGraph.open(file);
+	}
+
+	@Test
+	public void anOpenedGraphHasTheSameNodesAndEdgesAsTheOneWritten() throws IOException {
+		CompactGraph kitsilano = Maps.load("/maps/kitsilanotest.map").freeze();
+		CompactGraph opened = writtenAndOpened(kitsilano);
+
+		assertThat(opened.nodeCount(), is(kitsilano.nodeCount()));
+		assertThat(opened.edgeCount(), is(kitsilano.edgeCount()));
+
+		for (int origin = 0; origin < kitsilano.nodeCount(); origin++) {
+			assertThat(opened.node(origin), is(kitsilano.node(origin)));
+			assertThat(opened.idOf(kitsilano.node(origin)), is(origin));
+			assertThat(opened.inDegree(origin), is(kitsilano.inDegree(origin)));
+
+			for (int edge = kitsilano.edgesBegin(origin); edge < kitsilano.edgesEnd(origin); edge++) {
+				GraphEdge expected = kitsilano.edge(origin, edge);
+				GraphEdge actual = opened.edge(origin, edge);
+
+				assertThat(actual, is(expected));
+				assertThat(actual.weight(), is(expected.weight()));
+				assertThat(actual.label(), is(expected.label()));
+				assertThat(actual.type(), is(expected.type()));
+			}
+		}
+	}
+
+	@Test
+	public void anOpenedGraphIsNavigatedLikeTheOneWritten() throws IOException {
+		CompactGraph kitsilano = Maps.load("/maps/kitsilanotest.map").freeze();
+		CompactGraph opened = writtenAndOpened(kitsilano);
+
+		for (int origin = 0; origin < kitsilano.nodeCount(); origin += 7) {
+			for (int destination = 0; destination < kitsilano.nodeCount(); destination += 5) {
+				assertThat(opened.navigateByWeight(origin, destination).cost(), is(kitsilano.navigateByWeight(origin, destination).cost()));
+				assertThat(opened.navigateBidirectionally(origin, destination).size(), is(kitsilano.navigate(origin, destination).size()));
+			}
+		}
+	}
+
+	@Test
+	public void anOpenedGraphRemembersItHasNegativeWeights() throws IOException {
+		a.getEdgeTo(b).weight(-1.0);
+
+		try {
+			writtenAndOpened(graph.freeze()).navigateByWeight(a, c);
+
+			fail("Trying to navigate by weight with negative weights should throw an IllegalStateException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalStateException.class));
+		}
+	}
+
+	@Test
+	public void filesThatAreNotGraphsAreRefused() throws IOException {
+		Path file = folder.newFile().toPath();
+
+		Files.write(file, "0.0,0.0,0.0,4.0,Ave,Cornwall Ave,4.0\n0.0,4.0,0.0,8.0,Ave,Cornwall Ave,4.0\n".getBytes());
+
+		try {
+			CompactGraph.open(file);
+
+			fail("Trying to open a file that is not a graph should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is("You are trying to open " + file + ", which is not a graph file. Please, check it out."));
+		}
+	}
+
+	@Test
+	public void truncatedGraphFilesAreRefused() throws IOException {
+		Path file = folder.newFile().toPath();
+		byte[] content;
+
+		try (OutputStream stream = Files.newOutputStream(file)) {
+			GraphWriter.writeBinary(compactGraph, stream);
+		}
+
+		content = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(content, content.length - 1));
+
+		try {
+			CompactGraph.open(file);
+
+			fail("Trying to open a truncated graph file should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+
+	@Test
+	public void bigEndianFilesOfTheFirstVersionAreRefused() throws IOException {
+		Path file = folder.newFile().toPath();
+		ByteBuffer header = ByteBuffer.allocate(GraphWriter.BINARY_HEADER_BYTES);
+
+		header.putInt(GraphWriter.BINARY_MAGIC).putInt(1);
+		Files.write(file, header.array());
+
+		try {
+			CompactGraph.open(file);
+
+			fail("Trying to open a file of the first version should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is("You are trying to open " + file + ", which was written in version 1"
+					+ " of the graph file format. Only version 2 is supported."));
+		}
+	}
+
+	private static final class RecordingListener implements TraversalListener {
+
+		private final List<Integer> discovered = new ArrayList<>();
+		private final List<Integer> settled = new ArrayList<>();
+		private final List<Double> costs = new ArrayList<>();
+		private final List<Boolean> finishes = new ArrayList<>();
+
+		@Override
+		public void nodeDiscovered(int node) {
+			discovered.add(node);
+		}
+
+		@Override
+		public void nodeSettled(int node) {
+			settled.add(node);
+		}
+
+		@Override
+		public void edgeRelaxed(int origin, int destination, double cost) {
+			costs.add(cost);
+		}
+
+		@Override
+		public void searchFinished(boolean pathFound) {
+			finishes.add(pathFound);
+		}
+	}
+
+	@Test
+	public void theListenerFollowsTheWeightedSearchStepByStep() {
+		RecordingListener listener = new RecordingListener();
+		SearchWorkspace workspace = new SearchWorkspace(compactGraph.nodeCount());
+
+		workspace.listener(listener);
+		compactGraph.findCheapestPath(compactGraph.idOf(a), compactGraph.idOf(c), 0.0, workspace);
+
+		assertThat(listener.settled, is(Arrays.asList(compactGraph.idOf(a), compactGraph.idOf(d), compactGraph.idOf(e), compactGraph.idOf(c))));
+		assertThat(new HashSet<>(listener.discovered), is(new HashSet<>(Arrays.asList(compactGraph.idOf(a), compactGraph.idOf(b),
+				compactGraph.idOf(c), compactGraph.idOf(d), compactGraph.idOf(e)))));
+		assertThat(listener.costs, is(Arrays.asList(10.0, 1.0, 2.0, 3.0)));
+		assertThat(listener.finishes, is(Arrays.asList(true)));
+	}
+
+	@Test
+	public void theListenerIsToldAboutEveryBreadthFirstSearch() {
+		RecordingListener listener = new RecordingListener();
+
+		compactGraph.workspace().listener(listener);
+
+		try {
+			compactGraph.navigate(a, c);
+			compactGraph.navigate(c, a);
+			compactGraph.navigateBidirectionally(a, c);
+
+			assertThat(listener.finishes, is(Arrays.asList(true, false, true)));
+			assertThat(listener.discovered.size(), is(4 + 1 + 6));
+			assertThat(listener.costs.stream().allMatch(cost -> cost.isNaN()), is(true));
+
+		} finally {
+			compactGraph.workspace().listener(null);
+		}
+
+		compactGraph.navigate(a, c);
+
+		assertThat(listener.finishes.size(), is(3));
+	}
+
+	@Test
+	public void theWorkspaceCountsWhatTheLastSearchDid() {
+		SearchWorkspace workspace = new SearchWorkspace(compactGraph.nodeCount());
+
+		compactGraph.findCheapestPath(compactGraph.idOf(a), compactGraph.idOf(c), 0.0, workspace);
+
+		assertThat(workspace.nodesSettled(), is(4));
+		assertThat(workspace.edgesRelaxed(), is(4));
+
+		compactGraph.findPath(compactGraph.idOf(c), compactGraph.idOf(a), workspace);
+
+		assertThat(workspace.nodesSettled(), is(1));
+		assertThat(workspace.edgesRelaxed(), is(0));
+	}
+
+	@Test
+	public void metricsRecordEverySearchOnTheGraph() {
+		QueryMetrics metrics = new QueryMetrics();
+
+		compactGraph.metrics(metrics);
+		compactGraph.navigateByWeight(a, c);
+		compactGraph.navigate(c, a);
+		compactGraph.navigateBidirectionally(a, c);
+		compactGraph.metrics(null);
+		compactGraph.navigate(a, c);
+
+		QueryMetrics.Snapshot snapshot = metrics.snapshot();
+
+		assertThat(snapshot.queries(), is(3L));
+		assertThat(snapshot.pathLengths().count(), is(2L));
+		assertThat(snapshot.pathLengths().max(), is(3L));
+		assertThat(snapshot.nodesSettled().max(), is(4L));
+		assertThat(snapshot.latencies().max() > 0L, is(true));
+		assertThat(metrics.getUnreachable(), is(1L));
+	}
+
+	@Test
+	public void metricsCanBeSharedByManyThreads() throws InterruptedException {
+		QueryMetrics metrics = new QueryMetrics();
+		List<Thread> threads = new ArrayList<>();
+
+		compactGraph.metrics(metrics);
+
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(() -> {
+				for (int query = 0; query < 1000; query++) {
+					compactGraph.navigateByWeight(a, c);
+				}
+			}));
+		}
+
+		threads.forEach(Thread::start);
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(metrics.snapshot().queries(), is(4000L));
+		assertThat(metrics.snapshot().edgesRelaxed().mean(), is(4.0));
+	}
+
+	@Test
+	public void metricsArePublishedThroughJmx() throws Exception {
+		QueryMetrics metrics = new QueryMetrics();
+		ObjectName name = metrics.register("compact graph test");
+
+		try {
+			metrics.record(1000L, 4, 5, 3, true);
+
+			assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Queries"), is((Object) 1L));
+			assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "PathLengthMax"), is((Object) 3L));
+
+		} finally {
+			metrics.unregister("compact graph test");
+		}
+
+		assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(name), is(false));
+	}
+
+	@Test
+	public void hopDistancesCountTheEdgesOfTheShortestJourneys() {
+		int[] hops = compactGraph.hopDistances(compactGraph.idOf(a));
+
+		assertThat(hops[compactGraph.idOf(a)], is(0));
+		assertThat(hops[compactGraph.idOf(b)], is(1));
+		assertThat(hops[compactGraph.idOf(c)], is(2));
+		assertThat(hops[compactGraph.idOf(e)], is(2));
+		assertThat(compactGraph.hopDistances(compactGraph.idOf(c))[compactGraph.idOf(a)], is(-1));
+	}
+
+	@Test
+	public void reachabilityFollowsTheDirectionOfTheEdges() {
+		assertThat(compactGraph.isReachable(compactGraph.idOf(a), compactGraph.idOf(c)), is(true));
+		assertThat(compactGraph.isReachable(compactGraph.idOf(c), compactGraph.idOf(a)), is(false));
+		assertThat(compactGraph.reachableFrom(compactGraph.idOf(d)).cardinality(), is(3));
+	}
+
+	@Test
+	public void searchingFromANodeOutsideTheGraphIsRejected() {
+
+		try {
+			compactGraph.hopDistances(compactGraph.nodeCount());
+
+			fail("Trying to search from a node outside the graph should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+
+	@Test
+	public void theParallelSearchAgreesWithASequentialOneOnALargeRandomGraph() {
+		CompactGraph randomGraph = Fixtures.randomGraph(new Random(7), 50_000, 6, 25_000);
+		int origin = randomGraph.idOf(0.0, 0.0);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			assertThat(randomGraph.hopDistances(origin, pool), is(sequentialHops(randomGraph, origin)));
+
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void theParallelSearchWalksDeepChains() {
+		ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder();
+		int nodeCount = 10_000;
+
+		for (int id = 0; id < nodeCount; id++) {
+			builder.addNode(id, 0.0);
+		}
+
+		for (int id = 0; id + 1 < nodeCount; id++) {
+			builder.addEdge(id, 0.0, id + 1, 0.0, 1.0, null, null);
+		}
+
+		CompactGraph chain = builder.freeze();
+		int[] hops = chain.hopDistances(chain.idOf(0.0, 0.0));
+
+		assertThat(hops[chain.idOf(nodeCount - 1.0, 0.0)], is(nodeCount - 1));
+		assertThat(chain.isReachable(chain.idOf(nodeCount - 1.0, 0.0), chain.idOf(0.0, 0.0)), is(false));
+	}
+
+	private static int[] sequentialHops(CompactGraph graph, int origin) {
+		int[] hops = new int[graph.nodeCount()];
+		int[] scheduler = new int[graph.nodeCount()];
+		int head = 0;
+		int tail = 0;
+
+		Arrays.fill(hops, -1);
+		hops[origin] = 0;
+		scheduler[tail++] = origin;
+
+		while (head < tail) {
+			int node = scheduler[head++];
+
+			for (int edge = graph.edgesBegin(node); edge < graph.edgesEnd(node); edge++) {
+				if (hops[graph.edgeTarget(edge)] == -1) {
+					hops[graph.edgeTarget(edge)] = hops[node] + 1;
+					scheduler[tail++] = graph.edgeTarget(edge);
+				}
+			}
+		}
+
+		return hops;
+	}
+}
@@ -0,0 +1,169 @@
+package improvedgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentGraphBuilderTest {
+
+	private ConcurrentGraphBuilder builder;
+	private GraphNode a;
+	private GraphNode b;
+	private GraphNode c;
+
+	@Before
+	public void setUp() throws Exception {
+		builder = new ConcurrentGraphBuilder(4);
+		a = new GraphNode(0.0, 0.0);
+		b = new GraphNode(0.0, 1.0);
+		c = new GraphNode(1.0, 1.0);
+
+		builder.addNode(a);
+		builder.addNode(b);
+		builder.addNode(c);
+	}
+
+	@Test
+	public void addingANodeTwiceGivesBackTheSameId() {
+		assertThat(builder.addNode(0.0, 1.0), is(builder.idOf(0.0, 1.0)));
+		assertThat(builder.nodeCount(), is(3));
+	}
+
+	@Test
+	public void addingAnEdgeTwiceIsRejected() {
+		builder.addEdge(a, b);
+
+		try {
+			builder.addEdge(a, b);
+
+			fail("Trying to add the same edge twice should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+
+		assertThat(builder.edgeCount(), is(1));
+	}
+
+	@Test
+	public void addingAnEdgeFromAMissingNodeIsRejected() {
+
+		try {
+			builder.addEdge(new GraphNode(5.0, 5.0), a);
+
+			fail("Trying to add an edge from a node that was never added should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+
+	@Test
+	public void theBuiltGraphKeepsTheEdgesAndTheirAttributes() {
+		builder.addEdge(a, b, 2.5, EdgeType.AVE, "Main");
+		builder.addEdge(b, c);
+
+		Graph graph = builder.build();
+		GraphNode origin = graph.nodeWithId(graph.idOf(a));
+
+		assertThat(graph.nodeCount(), is(3));
+		assertThat(origin.getEdgeTo(b).weight(), is(2.5));
+		assertThat(origin.getEdgeTo(b).type(), is(EdgeType.AVE));
+		assertThat(origin.getEdgeTo(b).label(), is("Main"));
+		assertThat(graph.navigate(a, c).size(), is(2));
+	}
+
+	@Test
+	public void theBuiltGraphKeepsTheIdsTheBuilderGaveOut() {
+		List<Integer> ids = new ArrayList<>();
+
+		for (int node = 0; node < 100; node++) {
+			ids.add(builder.addNode(node * 0.5, -node));
+		}
+
+		Graph graph = builder.build();
+
+		assertThat(graph.idOf(b), is(builder.idOf(0.0, 1.0)));
+
+		for (int node = 0; node < 100; node++) {
+			assertThat(graph.idOf(node * 0.5, -node), is(ids.get(node)));
+		}
+	}
+
+	@Test
+	public void theFrozenGraphKeepsTheEdgesAndTheirAttributes() {
+		builder.addEdge(a, c, 1.0, null, null);
+		builder.addEdge(a, b, 2.5, EdgeType.LANE, "Side");
+		builder.addEdge(b, c, 1.0, null, "Side");
+
+		CompactGraph graph = builder.freeze();
+		int origin = graph.idOf(a);
+
+		assertThat(graph.edgeCount(), is(3));
+		assertThat(graph.outDegree(origin), is(2));
+		assertThat(graph.edgeTarget(graph.edgesBegin(origin)) < graph.edgeTarget(graph.edgesBegin(origin) + 1), is(true));
+		assertThat(graph.edge(graph.idOf(b), graph.edgesBegin(graph.idOf(b))).label(), is("Side"));
+		assertThat(graph.navigateByWeight(a, c).cost(), is(1.0));
+		assertThat(graph.inDegree(graph.idOf(c)), is(2));
+	}
+
+	@Test(timeout = 30000)
+	public void manyThreadsCanBuildTheSameGraph() throws InterruptedException {
+		ConcurrentGraphBuilder gridBuilder = new ConcurrentGraphBuilder();
+		int side = 200;
+		int threadCount = 4;
+		AtomicInteger duplicates = new AtomicInteger();
+		ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		List<Thread> threads = new ArrayList<>();
+
+		for (int x = 0; x < side; x++) {
+			for (int y = 0; y < side; y++) {
+				gridBuilder.addNode(x, y);
+			}
+		}
+
+		// Every thread tries every edge, so all but one attempt at each must be turned down.
+		for (int t = 0; t < threadCount; t++) {
+			threads.add(new Thread(() -> {
+				try {
+					for (int x = 0; x + 1 < side; x++) {
+						for (int y = 0; y < side; y++) {
+							try {
+								gridBuilder.addEdge(x, y, x + 1, y, 1.0, EdgeType.STREET, null);
+
+							} catch (IllegalArgumentException e) {
+								duplicates.incrementAndGet();
+							}
+						}
+					}
+
+				} catch (Throwable failure) {
+					failures.add(failure);
+				}
+			}));
+		}
+
+		threads.forEach(Thread::start);
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		CompactGraph graph = gridBuilder.freeze();
+
+		assertThat(failures.isEmpty(), is(true));
+		assertThat(gridBuilder.edgeCount(), is((side - 1) * side));
+		assertThat(duplicates.get(), is((threadCount - 1) * (side - 1) * side));
+		assertThat(graph.edgeCount(), is((side - 1) * side));
+		assertThat(graph.navigate(graph.idOf(0.0, 7.0), graph.idOf(side - 1.0, 7.0)).size(), is(side - 1));
+	}
+}
@@ -0,0 +1,294 @@
+package improvedgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContractionHierarchyTest {
+
+	private GraphNode a;
+	private GraphNode b;
+	private GraphNode c;
+	private GraphNode d;
+	private GraphNode e;
+	private Graph graph;
+	private CompactGraph compactGraph;
+	private ContractionHierarchy hierarchy;
+
+	@Before
+	public void setUp() throws Exception {
+		Fixtures.Roads roads = new Fixtures.Roads();
+
+		a = roads.a;
+		b = roads.b;
+		c = roads.c;
+		d = roads.d;
+		e = roads.e;
+		graph = roads.graph;
+
+		compactGraph = graph.freeze();
+		hierarchy = ContractionHierarchy.build(compactGraph);
+	}
+
+	@Test
+	public void everyNodeIsGivenItsOwnRank() {
+		boolean[] taken = new boolean[compactGraph.nodeCount()];
+
+		for (int id = 0; id < compactGraph.nodeCount(); id++) {
+			assertThat(taken[hierarchy.rank(id)], is(false));
+			taken[hierarchy.rank(id)] = true;
+		}
+	}
+
+	@Test
+	public void theNavigatorReturnsTheCheapestPathUnpackedIntoEdgesOfTheGraph() {
+		WeightedPath cheapestPath = hierarchy.navigate(a, c);
+
+		assertThat(cheapestPath.cost(), is(3.0));
+		assertThat(cheapestPath.edges().size(), is(3));
+		assertThat(cheapestPath.edges().pop(), is(new GraphEdge(a, d)));
+		assertThat(cheapestPath.edges().pop(), is(new GraphEdge(d, e)));
+
+		GraphEdge lastEdge = cheapestPath.edges().pop();
+
+		assertThat(lastEdge, is(new GraphEdge(e, c)));
+		assertThat(lastEdge.type(), is(EdgeType.STREET));
+	}
+
+	@Test
+	public void theNavigatorReportsUnreachableDestinations() {
+		WeightedPath cheapestPath = hierarchy.navigate(c, a);
+
+		assertThat(cheapestPath.exists(), is(false));
+		assertThat(cheapestPath.edges().isEmpty(), is(true));
+	}
+
+	@Test
+	public void navigatingToTheOriginCostsNothing() {
+		WeightedPath cheapestPath = hierarchy.navigate(a, a);
+
+		assertThat(cheapestPath.exists(), is(true));
+		assertThat(cheapestPath.cost(), is(0.0));
+		assertThat(cheapestPath.edges().isEmpty(), is(true));
+	}
+
+	@Test
+	public void anExceptionIsThrownWhenTheNavigatorIsAskedToNavigateFromAnInexistentNode() {
+
+		try {
+			hierarchy.navigate(new GraphNode(0.0, 0.1), c);
+
+			fail("Trying to navigate from an inexistent origin should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is(
+					"You are trying to navigate from an origin that is not in the graph. Please, check it out."));
+		}
+	}
+
+	@Test
+	public void graphsWithNegativeWeightsCannotBeContracted() {
+		a.getEdgeTo(b).weight(-1.0);
+
+		try {
+			ContractionHierarchy.build(graph);
+
+			fail("Trying to contract a graph with negative weights should throw an IllegalStateException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalStateException.class));
+			assertThat(e.getMessage(), is(
+					"You are trying to contract a graph with negative edge weights. Only non-negative weights are supported."));
+		}
+	}
+
+	@Test
+	public void queriesAreRecordedByTheMetricsOfTheGraph() {
+		QueryMetrics metrics = new QueryMetrics();
+
+		compactGraph.metrics(metrics);
+		hierarchy.navigate(a, c);
+		hierarchy.navigate(c, a);
+
+		assertThat(metrics.getQueries(), is(2L));
+		assertThat(metrics.getUnreachable(), is(1L));
+		assertThat(metrics.getPathLengthMax(), is(3L));
+	}
+
+	@Test
+	public void theHierarchyAgreesWithDijkstraOnALargeRandomGraph() {
+		CompactGraph randomGraph = Fixtures.randomGraph(new Random(11), 5_000, 3, 20);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			assertAgreesWithDijkstra(randomGraph, ContractionHierarchy.build(randomGraph, pool), new Random(13));
+
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void theHierarchyCanBeWrittenAndReadBack() throws IOException {
+		CompactGraph randomGraph = Fixtures.randomGraph(new Random(17), 2_000, 3, 20);
+		ContractionHierarchy readHierarchy = writtenAndRead(ContractionHierarchy.build(randomGraph), randomGraph);
+
+		assertAgreesWithDijkstra(randomGraph, readHierarchy, new Random(19));
+	}
+
+	@Test
+	public void aHierarchyCannotBeReadForAnotherGraph() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		hierarchy.write(bytes);
+		graph.removeTheEdgeBetweenTheFollowingNodes(a, b);
+
+		try {
+			ContractionHierarchy.read(graph.freeze(), new ByteArrayInputStream(bytes.toByteArray()));
+
+			fail("Trying to read a hierarchy for another graph should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is("You are trying to read a contraction hierarchy of a graph with 5 nodes and 5 edges"
+					+ " for a graph with 5 nodes and 4 edges. Please, check it out."));
+		}
+	}
+
+	@Test
+	public void aHierarchyCannotBeReadForAGraphWithTheSameCountsButOtherWeights() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		hierarchy.write(bytes);
+		a.getEdgeTo(b).weight(11.0);
+
+		try {
+			ContractionHierarchy.read(graph.freeze(), new ByteArrayInputStream(bytes.toByteArray()));
+
+			fail("Trying to read a hierarchy for a graph with other weights should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is("You are trying to read a contraction hierarchy of a graph whose edges lead elsewhere or weigh"
+					+ " differently from those of the given graph. Please, check it out."));
+		}
+	}
+
+	@Test
+	public void readingAHierarchyLeavesWhateverFollowsItInTheStream() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		hierarchy.write(bytes);
+		bytes.write(42);
+
+		ByteArrayInputStream stream = new ByteArrayInputStream(bytes.toByteArray());
+
+		ContractionHierarchy.read(compactGraph, stream);
+
+		assertThat(stream.read(), is(42));
+		assertThat(stream.read(), is(-1));
+	}
+
+	@Test
+	public void dataThatIsNotAHierarchyIsRefused() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		GraphWriter.writeBinary(compactGraph, bytes);
+
+		try {
+			ContractionHierarchy.read(compactGraph, new ByteArrayInputStream(bytes.toByteArray()));
+
+			fail("Trying to read a graph file as a hierarchy should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is(
+					"You are trying to read a contraction hierarchy from data that does not hold one. Please, check it out."));
+		}
+	}
+
+	@Test
+	public void aHierarchyWhoseOffsetsAreCorruptIsRefused() throws IOException {
+		int upOffsets = 32 + 8 * hierarchy.edgeCount() + 4 * compactGraph.nodeCount();
+
+		assertCorruptWhenTheIntAtIs(upOffsets + 4, -1);
+	}
+
+	@Test
+	public void aHierarchyWhoseEdgesLeadOutsideTheGraphIsRefused() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		hierarchy.write(bytes);
+
+		ByteBuffer header = ByteBuffer.wrap(bytes.toByteArray());
+		int edgeTargets = 32 + 12 * hierarchy.edgeCount() + 4 * (3 * compactGraph.nodeCount() + 2 + header.getInt(20) + header.getInt(24));
+
+		assertCorruptWhenTheIntAtIs(edgeTargets, compactGraph.nodeCount());
+	}
+
+	private void assertCorruptWhenTheIntAtIs(int position, int value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		hierarchy.write(bytes);
+
+		byte[] corrupted = bytes.toByteArray();
+
+		ByteBuffer.wrap(corrupted).putInt(position, value);
+
+		try {
+			ContractionHierarchy.read(compactGraph, new ByteArrayInputStream(corrupted));
+
+			fail("Trying to read a corrupt hierarchy should throw an IOException.");
+
+		} catch (IOException e) {
+			assertThat(e.getMessage(), is("You are trying to read a contraction hierarchy whose data is corrupt. Please, check it out."));
+		}
+	}
+
+	private static ContractionHierarchy writtenAndRead(ContractionHierarchy hierarchy, CompactGraph graph) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		hierarchy.write(bytes);
+
+		return ContractionHierarchy.read(graph, new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	private static void assertAgreesWithDijkstra(CompactGraph graph, ContractionHierarchy hierarchy, Random random) {
+
+		for (int query = 0; query < 500; query++) {
+			int origin = random.nextInt(graph.nodeCount());
+			int destination = random.nextInt(graph.nodeCount());
+			WeightedPath expected = graph.navigateByWeight(origin, destination);
+			WeightedPath actual = hierarchy.navigate(origin, destination);
+			GraphNode reached = graph.node(origin);
+			double cost = 0.0;
+
+			assertThat(actual.cost(), is(expected.cost()));
+
+			while (!actual.edges().isEmpty()) {
+				GraphEdge edge = actual.edges().pop();
+
+				assertThat(edge.origin(), is(reached));
+				reached = edge.destination();
+				cost += edge.weight();
+			}
+
+			if (expected.exists()) {
+				assertThat(reached, is(graph.node(destination)));
+				assertThat(cost, is(expected.cost()));
+			}
+		}
+	}
+}
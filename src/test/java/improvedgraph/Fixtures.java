@@ -0,0 +1,63 @@
+package improvedgraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+final class Fixtures {
+
+	private Fixtures() {
+	}
+
+	// Five streets where the cheapest way from a to c goes round through d and e for 3, instead of through b for 20.
+	static final class Roads {
+
+		final GraphNode a = new GraphNode(0.0, 0.0);
+		final GraphNode b = new GraphNode(0.0, 1.0);
+		final GraphNode c = new GraphNode(1.0, 1.0);
+		final GraphNode d = new GraphNode(1.0, 0.0);
+		final GraphNode e = new GraphNode(2.0, 0.0);
+		final Graph graph = new Graph(new HashSet<>(Arrays.asList(a, b, c, d, e)));
+
+		Roads() {
+			createAWeightedEdge(a, b, 10.0);
+			createAWeightedEdge(b, c, 10.0);
+			createAWeightedEdge(a, d, 1.0);
+			createAWeightedEdge(d, e, 1.0);
+			createAWeightedEdge(e, c, 1.0);
+		}
+
+		private void createAWeightedEdge(GraphNode origin, GraphNode destination, double weight) {
+			graph.createAnEdgeBetweenTheFollowingNodes(origin, destination);
+			origin.getEdgeTo(destination).weight(weight);
+			origin.getEdgeTo(destination).type(EdgeType.STREET);
+		}
+	}
+
+	/*
+	 * Nodes on a line, each with about the given number of edges to others at
+	 * most reach ids away, as roads would be when the reach is short. Weights
+	 * are whole numbers, so that costs add up exactly.
+	 */
+	static CompactGraph randomGraph(Random random, int nodeCount, int edgesPerNode, int reach) {
+		ConcurrentGraphBuilder builder = new ConcurrentGraphBuilder();
+
+		for (int id = 0; id < nodeCount; id++) {
+			builder.addNode(id, 0.0);
+		}
+
+		for (int edge = 0; edge < nodeCount * edgesPerNode; edge++) {
+			int origin = random.nextInt(nodeCount);
+			int destination = Math.floorMod(origin + random.nextInt(2 * reach + 1) - reach, nodeCount);
+
+			try {
+				builder.addEdge(origin, 0.0, destination, 0.0, random.nextInt(100), null, null);
+
+			} catch (IllegalArgumentException e) {
+				// The same edge came up twice.
+			}
+		}
+
+		return builder.freeze();
+	}
+}
@@ -0,0 +1,176 @@
+package improvedgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GraphLoaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static Path resource(String name) throws URISyntaxException {
+		return Paths.get(GraphLoaderTest.class.getResource(name).toURI());
+	}
+
+	private Path fileWith(String... lines) throws IOException {
+		Path file = folder.newFile().toPath();
+
+		Files.write(file, Arrays.asList(lines));
+
+		return file;
+	}
+
+	private static void assertSameGraph(CompactGraph actual, CompactGraph expected) {
+		assertThat(actual.nodeCount(), is(expected.nodeCount()));
+		assertThat(actual.edgeCount(), is(expected.edgeCount()));
+
+		for (int expectedOrigin = 0; expectedOrigin < expected.nodeCount(); expectedOrigin++) {
+			int origin = actual.idOf(expected.node(expectedOrigin));
+
+			assertThat(actual.outDegree(origin), is(expected.outDegree(expectedOrigin)));
+
+			for (int expectedEdge = expected.edgesBegin(expectedOrigin); expectedEdge < expected.edgesEnd(expectedOrigin); expectedEdge++) {
+				GraphEdge expectedGraphEdge = expected.edge(expectedOrigin, expectedEdge);
+				int target = actual.idOf(expectedGraphEdge.destination());
+				int edge = actual.edgesBegin(origin);
+
+				while (actual.edgeTarget(edge) != target) {
+					edge++;
+				}
+
+				assertThat(actual.edgeWeight(edge), is(expectedGraphEdge.weight()));
+				assertThat(actual.edgeLabel(edge), is(expectedGraphEdge.label()));
+				assertThat(actual.edgeType(edge), is(expectedGraphEdge.type()));
+			}
+		}
+	}
+
+	@Test
+	public void theLoaderBuildsTheSameGraphAsReadingTheMapLineByLine() throws Exception {
+		assertSameGraph(GraphLoader.loadEdgeList(resource("/maps/kitsilanotest.map")), Maps.load("/maps/kitsilanotest.map").freeze());
+		assertSameGraph(GraphLoader.loadEdgeList(resource("/maps/simpletest.map")), Maps.load("/maps/simpletest.map").freeze());
+	}
+
+	@Test
+	public void numbersAreParsedExactlyLikeDoubleParseDouble() throws IOException {
+		Random random = new Random(23);
+		String[] lines = new String[2_000];
+		double[][] values = new double[lines.length][];
+
+		for (int i = 0; i < lines.length; i++) {
+			double scale = Math.pow(10, random.nextInt(40) - 20);
+
+			values[i] = new double[] { random.nextGaussian() * scale, random.nextGaussian() * scale, random.nextInt(100_000) / 1000.0,
+					random.nextGaussian(), Math.abs(random.nextGaussian()) * scale };
+			lines[i] = values[i][0] + "," + values[i][1] + "," + values[i][2] + "," + String.format("%.6f", values[i][3]) + ",Street,Edge " + i
+					+ "," + values[i][4];
+		}
+
+		CompactGraph graph = GraphLoader.loadEdgeList(fileWith(lines));
+
+		for (int i = 0; i < lines.length; i++) {
+			int origin = graph.idOf(values[i][0], values[i][1]);
+			int destination = graph.idOf(values[i][2], Double.parseDouble(String.format("%.6f", values[i][3])));
+			int edge = graph.edgesBegin(origin);
+
+			assertThat(graph.outDegree(origin), is(1));
+			assertThat(graph.edgeTarget(edge), is(destination));
+			assertThat(graph.edgeWeight(edge), is(values[i][4]));
+			assertThat(graph.edgeLabel(edge), is("Edge " + i));
+		}
+	}
+
+	@Test
+	public void edgeListsWrittenByTheWriterAreLoadedBack() throws Exception {
+		CompactGraph kitsilano = Maps.load("/maps/kitsilanotest.map").freeze();
+		Path file = folder.newFile().toPath();
+
+		try (Writer writer = Files.newBufferedWriter(file)) {
+			GraphWriter.writeEdgeList(kitsilano, writer);
+		}
+
+		assertSameGraph(GraphLoader.loadEdgeList(file), kitsilano);
+	}
+
+	@Test
+	public void repeatedEdgesKeepTheFirstOneRead() throws IOException {
+		CompactGraph graph = GraphLoader.loadEdgeList(fileWith("0,0,1,1,Ave,First,2.0", "1,1,0,0,Lane,Back", "0,0,1,1,Street,Second,3.0"));
+
+		assertThat(graph.nodeCount(), is(2));
+		assertThat(graph.edgeCount(), is(2));
+
+		GraphEdge edge = graph.edge(graph.idOf(0.0, 0.0), graph.edgesBegin(graph.idOf(0.0, 0.0)));
+
+		assertThat(edge.label(), is("First"));
+		assertThat(edge.weight(), is(2.0));
+		assertThat(graph.edge(graph.idOf(1.0, 1.0), graph.edgesBegin(graph.idOf(1.0, 1.0))).weight(), is(1.0));
+	}
+
+	@Test
+	public void theDimacsFormatIsLoadedFromItsCoordinateAndArcFiles() throws IOException {
+		Path coordinates = fileWith("c a tiny graph", "p aux sp co 3", "v 1 -73530767 41085396", "v 2 -73530538 41086098", "v 3 -73519366 41048796");
+		Path arcs = fileWith("c a tiny graph", "p sp 3 3", "a 1 2 803", "a 2 1 803", "a 2 3 158");
+
+		CompactGraph graph = GraphLoader.loadDimacs(coordinates, arcs);
+		int origin = graph.idOf(-73530767.0, 41085396.0);
+		int destination = graph.idOf(-73519366.0, 41048796.0);
+
+		assertThat(graph.nodeCount(), is(3));
+		assertThat(graph.edgeCount(), is(3));
+		assertThat(graph.navigateByWeight(origin, destination).cost(), is(961.0));
+	}
+
+	@Test
+	public void onlyTheCheapestOfRepeatedDimacsArcsIsKept() throws IOException {
+		Path coordinates = fileWith("v 1 0 0", "v 2 1 1");
+		Path arcs = fileWith("a 1 2 803", "a 1 2 158", "a 1 2 400");
+
+		CompactGraph graph = GraphLoader.loadDimacs(coordinates, arcs);
+		int origin = graph.idOf(0.0, 0.0);
+
+		assertThat(graph.edgeCount(), is(1));
+		assertThat(graph.edgeWeight(graph.edgesBegin(origin)), is(158.0));
+	}
+
+	@Test
+	public void malformedLinesAreReportedWithTheirNumber() throws IOException {
+		Path file = fileWith("0,0,1,1,Ave,First,2.0", "", "0,0,1,x,Ave,Second");
+
+		try {
+			GraphLoader.loadEdgeList(file);
+
+			fail("Trying to load a malformed line should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is("You are trying to load " + file + ", whose line 3 is not valid for its format. Please, check it out."));
+		}
+	}
+
+	@Test
+	public void linesLongerThanTheReadBufferAreLoaded() throws IOException {
+		char[] label = new char[3 << 20];
+
+		Arrays.fill(label, 'a');
+
+		CompactGraph graph = GraphLoader.loadEdgeList(fileWith("0,0,1,1,Ave," + new String(label) + ",2.0", "1,1,0,0,Ave,Short"));
+
+		assertThat(graph.edgeCount(), is(2));
+		assertThat(graph.edgeLabel(graph.edgesBegin(graph.idOf(0.0, 0.0))).length(), is(label.length));
+	}
+}
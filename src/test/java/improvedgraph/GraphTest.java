@@ -14,9 +14,12 @@ import static org.junit.Assert.fail;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -557,4 +560,219 @@ public class GraphTest {
 		fail("Not yet implemented"); // TODO
 	}
 
+	@Test
+	public void theNavigatorCrossesAWideStar() {
+		GraphNode center = new GraphNode(0.0, 0.0);
+		GraphNode lastLeaf = null;
+		Set<GraphNode> star = new HashSet<>(Arrays.asList(center));
+
+		for (int leaf = 1; leaf <= 200_000; leaf++) {
+			lastLeaf = new GraphNode(leaf, 1.0);
+			star.add(lastLeaf);
+			center.addEdgeTo(lastLeaf);
+		}
+
+		GraphNode tail = new GraphNode(-1.0, -1.0);
+		star.add(tail);
+		lastLeaf.addEdgeTo(tail);
+
+		assertThat(new Graph(star).navigate(center, tail).size(), is(2));
+	}
+
+	@Test
+	public void theNavigatorCrossesAWideGrid() {
+		int side = 400;
+		GraphNode[][] grid = new GraphNode[side][side];
+		Set<GraphNode> gridNodes = new HashSet<>();
+
+		for (int x = 0; x < side; x++) {
+			for (int y = 0; y < side; y++) {
+				grid[x][y] = new GraphNode(x, y);
+				gridNodes.add(grid[x][y]);
+			}
+		}
+
+		for (int x = 0; x < side; x++) {
+			for (int y = 0; y < side; y++) {
+				if (x + 1 < side) {
+					grid[x][y].addEdgeTo(grid[x + 1][y]);
+					grid[x + 1][y].addEdgeTo(grid[x][y]);
+				}
+
+				if (y + 1 < side) {
+					grid[x][y].addEdgeTo(grid[x][y + 1]);
+					grid[x][y + 1].addEdgeTo(grid[x][y]);
+				}
+			}
+		}
+
+		assertThat(new Graph(gridNodes).navigate(grid[0][0], grid[side - 1][side - 1]).size(), is(2 * (side - 1)));
+	}
+
+	@Test
+	public void manyThreadsCanNavigateTheSameGraphAtOnce() throws InterruptedException {
+		int side = 60;
+		Set<GraphNode> gridNodes = new HashSet<>();
+		GraphNode[][] grid = new GraphNode[side][side];
+		AtomicInteger wrongPaths = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+
+		for (int x = 0; x < side; x++) {
+			for (int y = 0; y < side; y++) {
+				grid[x][y] = new GraphNode(x, y);
+				gridNodes.add(grid[x][y]);
+			}
+		}
+
+		for (int x = 0; x < side; x++) {
+			for (int y = 0; y < side; y++) {
+				if (x + 1 < side)
+					grid[x][y].addEdgeTo(grid[x + 1][y]);
+
+				if (y + 1 < side)
+					grid[x][y].addEdgeTo(grid[x][y + 1]);
+			}
+		}
+
+		Graph gridGraph = new Graph(gridNodes);
+
+		for (int i = 0; i < 4; i++) {
+			int row = i;
+
+			threads.add(new Thread(() -> {
+				for (int query = 0; query < 200; query++) {
+					if (gridGraph.navigate(grid[row][0], grid[side - 1][side - 1]).size() != 2 * (side - 1) - row)
+						wrongPaths.incrementAndGet();
+				}
+			}));
+		}
+
+		threads.forEach(Thread::start);
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(wrongPaths.get(), is(0));
+	}
+
+	@Test
+	public void edgesCreatedFromCopiesOfTheNodesAreNavigableOverSeveralHops() {
+		GraphNode first = graph.createNodeFromCoordinates(1.0, 1.0);
+		GraphNode second = graph.createNodeFromCoordinates(2.0, 2.0);
+		GraphNode third = graph.createNodeFromCoordinates(3.0, 3.0);
+
+		graph.createAnEdgeBetweenTheFollowingNodes(first, second);
+		graph.createAnEdgeBetweenTheFollowingNodes(second, third);
+		graph.createAnEdgeBetweenTheFollowingNodes(third, origin);
+
+		Stack<GraphEdge> shortestPath = graph.navigate(first, origin);
+
+		assertThat(shortestPath.size(), is(3));
+		assertThat(shortestPath.pop(), is(new GraphEdge(first, second)));
+		assertThat(shortestPath.pop(), is(new GraphEdge(second, third)));
+		assertThat(shortestPath.pop(), is(new GraphEdge(third, origin)));
+	}
+
+	@Test(timeout = 10_000)
+	public void edgesAreCreatedAndRemovedInConstantTime() {
+		int nodeCount = 100_000;
+
+		for (int i = 0; i < nodeCount; i++) {
+			graph.createNodeFromCoordinates(i, -1.0);
+		}
+
+		for (int i = 0; i < nodeCount; i++) {
+			graph.createAnEdgeBetweenTheFollowingNodes(new GraphNode(i, -1.0), new GraphNode((i + 1) % nodeCount, -1.0));
+			graph.createAnEdgeBetweenTheFollowingNodes(new GraphNode(i, -1.0), new GraphNode((i + 2) % nodeCount, -1.0));
+		}
+
+		for (int i = 0; i < nodeCount; i += 2) {
+			graph.removeTheEdgeBetweenTheFollowingNodes(new GraphNode(i, -1.0), new GraphNode((i + 1) % nodeCount, -1.0));
+		}
+
+		assertThat(graph.freeze().edgeCount(), is(2 * nodeCount - nodeCount / 2));
+	}
+
+	@Test
+	public void nodesGetStableIdsInTheOrderTheyAreAdded() {
+		int nodeCount = graph.nodeCount();
+
+		graph.createNodeFromCoordinates(1.0, 1.0);
+		graph.addNode(new GraphNode(2.0, 2.0));
+		graph.createNodeFromCoordinates(1.0, 1.0);
+
+		assertThat(graph.nodeCount(), is(nodeCount + 2));
+		assertThat(graph.idOf(new GraphNode(1.0, 1.0)), is(nodeCount));
+		assertThat(graph.idOf(2.0, 2.0), is(nodeCount + 1));
+		assertThat(graph.nodeWithId(nodeCount), is(new GraphNode(1.0, 1.0)));
+		assertThat(graph.idOf(new GraphNode(9.0, 9.0)), is(-1));
+	}
+
+	@Test
+	public void frozenGraphsKeepTheIdsOfTheGraph() {
+		CompactGraph compactGraph = graph.freeze();
+
+		graph.nodes().forEach(node -> assertThat(compactGraph.idOf(node), is(graph.idOf(node))));
+	}
+
+	@Test
+	public void theNearestNodeIsFoundByCoordinates() {
+		assertThat(graph.nearestNode(19.0, 12.5), is(new GraphNode(20.0, 12.0)));
+		assertThat(graph.nearestNodes(20.0, 14.9, 2), is(Arrays.asList(new GraphNode(20.0, 14.0), new GraphNode(20.0, 16.0))));
+		assertThat(new HashSet<>(graph.nodesWithin(19.0, 11.0, 21.0, 15.0)), is(new HashSet<>(Arrays.asList(new GraphNode(20.0, 14.0), new GraphNode(20.0, 12.0)))));
+	}
+
+	@Test
+	public void theSpatialIndexFollowsTheNodesAddedToTheGraph() {
+		graph.nearestNode(0.0, 0.0);
+
+		graph.createNodeFromCoordinates(1.0, 1.0);
+		graph.addNode(new GraphNode(30.0, 30.0));
+
+		assertThat(graph.nearestNode(0.0, 0.0), is(new GraphNode(1.0, 1.0)));
+		assertThat(graph.nearestNode(29.0, 31.0), is(new GraphNode(30.0, 30.0)));
+		assertThat(graph.spatialIndex().size(), is(graph.nodeCount()));
+	}
+
+	@Test
+	public void theNearestNodeReturnedIsADefensiveCopy() {
+		graph.nearestNode(20.0, 14.0).addEdgeTo(new GraphNode(2.0, 1.0));
+
+		graph.nodes().forEach(node -> assertThat(node.edges().size(), equalTo(0)));
+	}
+
+	@Test
+	public void theListenerCountsHowFarEachNavigationExpands() {
+		int[] counts = new int[4];
+
+		graph.createAnEdgeBetweenTheFollowingNodes(origin, destination);
+		graph.listener(new TraversalListener() {
+
+			@Override
+			public void nodeDiscovered(int node) {
+				counts[0]++;
+			}
+
+			@Override
+			public void nodeSettled(int node) {
+				counts[1]++;
+			}
+
+			@Override
+			public void edgeRelaxed(int origin, int destination, double cost) {
+				counts[2]++;
+			}
+
+			@Override
+			public void searchFinished(boolean pathFound) {
+				counts[3] += pathFound ? 1 : 100;
+			}
+		});
+
+		graph.navigate(origin, destination);
+		graph.navigate(destination, origin);
+
+		assertThat(counts, is(new int[] { 3, 2, 1, 101 }));
+	}
 }
@@ -0,0 +1,91 @@
+package improvedgraph;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GraphWriterTest {
+
+	private GraphNode a;
+	private GraphNode b;
+	private GraphNode c;
+	private Graph graph;
+
+	@Before
+	public void setUp() throws Exception {
+		a = new GraphNode(0.0, 0.0);
+		b = new GraphNode(0.0, 1.5);
+		c = new GraphNode(2.0, 1.5);
+
+		graph = new Graph(new HashSet<>(Arrays.asList(a, b, c)));
+
+		graph.createAnEdgeBetweenTheFollowingNodes(a, b);
+		a.getEdgeTo(b).weight(1.5);
+		a.getEdgeTo(b).type(EdgeType.AVE);
+		a.getEdgeTo(b).label("Cornwall Ave");
+
+		graph.createAnEdgeBetweenTheFollowingNodes(b, c);
+		b.getEdgeTo(c).weight(2.0);
+	}
+
+	@Test
+	public void theEdgeListUsesTheLayoutOfTheMapFiles() throws IOException {
+		StringWriter writer = new StringWriter();
+
+		GraphWriter.writeEdgeList(graph, writer);
+
+		assertThat(writer.toString(), is("0.0,0.0,0.0,1.5,Ave,Cornwall Ave,1.5\n0.0,1.5,2.0,1.5,,,2.0\n"));
+	}
+
+	@Test
+	public void theDotOutputPinsNodesToTheirCoordinates() throws IOException {
+		StringWriter writer = new StringWriter();
+
+		GraphWriter.writeDot(graph, writer);
+
+		assertThat(writer.toString(), containsString("\t2 [pos=\"2.0,1.5!\"];\n"));
+		assertThat(writer.toString(), containsString("\t0 -> 1 [weight=1.5, label=\"Cornwall Ave\"];\n"));
+		assertThat(writer.toString(), containsString("\t1 -> 2 [weight=2.0];\n"));
+	}
+
+	@Test
+	public void theBinaryOutputHoldsEverySectionOfTheFrozenGraph() throws IOException {
+		CompactGraph kitsilano = Maps.load("/maps/kitsilanotest.map").freeze();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+		GraphWriter.writeBinary(kitsilano, stream);
+
+		ByteBuffer in = ByteBuffer.wrap(stream.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+		int nodeCount = kitsilano.nodeCount();
+		int edgeCount = kitsilano.edgeCount();
+
+		assertThat(in.getInt(), is(GraphWriter.BINARY_MAGIC));
+		assertThat(in.getInt(), is(GraphWriter.BINARY_VERSION));
+		assertThat(in.getInt(), is(nodeCount));
+		assertThat(in.getInt(), is(edgeCount));
+
+		int labelCount = in.getInt();
+		int labelBytes = in.getInt();
+
+		in.getInt();
+		in.getInt();
+
+		assertThat(stream.size(), is(GraphWriter.BINARY_HEADER_BYTES + 8 * (2 * nodeCount + edgeCount)
+				+ 4 * (2 * (nodeCount + 1) + 4 * edgeCount + labelCount + 1) + edgeCount + labelBytes));
+
+		for (int id = 0; id < nodeCount; id++) {
+			assertThat(in.getDouble(), is(kitsilano.xCoordinate(id)));
+		}
+	}
+}
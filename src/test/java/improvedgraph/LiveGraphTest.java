@@ -0,0 +1,190 @@
+package improvedgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LiveGraphTest {
+
+	private GraphNode a;
+	private GraphNode b;
+	private GraphNode c;
+	private GraphNode d;
+	private GraphNode e;
+	private Graph graph;
+	private LiveGraph liveGraph;
+
+	@Before
+	public void setUp() throws Exception {
+		Fixtures.Roads roads = new Fixtures.Roads();
+
+		a = roads.a;
+		b = roads.b;
+		c = roads.c;
+		d = roads.d;
+		e = roads.e;
+		graph = roads.graph;
+
+		liveGraph = new LiveGraph(graph);
+	}
+
+	@Test
+	public void closingARoadReroutesTheFollowingQueries() {
+		assertThat(liveGraph.navigateByWeight(a, c).cost(), is(3.0));
+
+		liveGraph.closeRoad(d, e);
+
+		assertThat(liveGraph.navigateByWeight(a, c).cost(), is(20.0));
+		assertThat(liveGraph.navigate(a, e).isEmpty(), is(true));
+	}
+
+	@Test
+	public void aReopenedRoadKeepsItsWeight() {
+		liveGraph.closeRoad(d, e);
+		liveGraph.reopenRoad(d, e);
+
+		assertThat(liveGraph.navigateByWeight(a, c).cost(), is(3.0));
+	}
+
+	@Test
+	public void closedAndReopenedRoadsAreReturnedWithAllTheirAttributes() {
+		d.getEdgeTo(e).type(EdgeType.AVE);
+		d.getEdgeTo(e).label("Cornwall Ave");
+
+		GraphEdge closed = liveGraph.closeRoad(d, e);
+		GraphEdge reopened = liveGraph.reopenRoad(d, e);
+
+		for (GraphEdge road : Arrays.asList(closed, reopened)) {
+			assertThat(road, is(new GraphEdge(d, e)));
+			assertThat(road.weight(), is(1.0));
+			assertThat(road.type(), is(EdgeType.AVE));
+			assertThat(road.label(), is("Cornwall Ave"));
+		}
+	}
+
+	@Test
+	public void aSnapshotIsNotChangedByLaterUpdates() {
+		CompactGraph before = liveGraph.snapshot();
+
+		liveGraph.closeRoad(d, e);
+		liveGraph.update(graph -> graph.removeTheEdgeBetweenTheFollowingNodes(a, b));
+
+		assertThat(before.navigateByWeight(a, c).cost(), is(3.0));
+		assertThat(liveGraph.snapshot().edgeCount(), is(3));
+		assertThat(liveGraph.navigate(a, c).isEmpty(), is(true));
+	}
+
+	@Test
+	public void manyRoadsAreClosedAndReopenedInOneVersion() {
+		List<GraphEdge> roads = Arrays.asList(new GraphEdge(d, e), new GraphEdge(a, b));
+
+		List<GraphEdge> closed = liveGraph.closeRoads(roads);
+		CompactGraph withoutThem = liveGraph.snapshot();
+		List<GraphEdge> reopened = liveGraph.reopenRoads(roads);
+
+		assertThat(closed, is(roads));
+		assertThat(reopened, is(roads));
+		assertThat(closed.get(0).weight(), is(1.0));
+		assertThat(withoutThem.edgeCount(), is(3));
+		assertThat(liveGraph.navigateByWeight(a, c).cost(), is(3.0));
+	}
+
+	@Test
+	public void closingManyRoadsClosesNoneIfOneIsNotOpen() {
+
+		try {
+			liveGraph.closeRoads(Arrays.asList(new GraphEdge(d, e), new GraphEdge(c, a)));
+			fail("Closing a road that is not open should have been rejected.");
+
+		} catch (IllegalArgumentException e) {
+			assertThat(liveGraph.snapshot().edgeCount(), is(5));
+			assertThat(liveGraph.navigateByWeight(a, c).cost(), is(3.0));
+		}
+	}
+
+	@Test
+	public void closingARoadThatIsNotOpenIsRejected() {
+
+		try {
+			liveGraph.closeRoad(c, a);
+
+			fail("Trying to close a road that does not exist should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+
+	@Test
+	public void reopeningARoadThatWasNotClosedIsRejected() {
+
+		try {
+			liveGraph.reopenRoad(a, d);
+
+			fail("Trying to reopen a road that was not closed should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+
+	@Test
+	public void metricsFollowTheGraphFromVersionToVersion() {
+		QueryMetrics metrics = new QueryMetrics();
+
+		liveGraph.metrics(metrics);
+		liveGraph.navigate(a, c);
+		liveGraph.closeRoad(d, e);
+		liveGraph.navigate(a, c);
+
+		assertThat(metrics.snapshot().queries(), is(2L));
+	}
+
+	@Test(timeout = 30000)
+	public void readersAlwaysSeeAWholeVersionWhileRoadsCloseAndReopen() throws InterruptedException {
+		AtomicBoolean writing = new AtomicBoolean(true);
+		ConcurrentLinkedQueue<Object> unexpected = new ConcurrentLinkedQueue<>();
+		List<Thread> readers = new ArrayList<>();
+
+		for (int i = 0; i < 4; i++) {
+			readers.add(new Thread(() -> {
+				try {
+					while (writing.get()) {
+						double cost = liveGraph.navigateByWeight(a, c).cost();
+
+						if (cost != 3.0 && cost != 20.0)
+							unexpected.add(cost);
+					}
+
+				} catch (RuntimeException failure) {
+					unexpected.add(failure);
+				}
+			}));
+		}
+
+		readers.forEach(Thread::start);
+
+		for (int update = 0; update < 500; update++) {
+			liveGraph.closeRoad(d, e);
+			liveGraph.reopenRoad(d, e);
+		}
+
+		writing.set(false);
+
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		assertThat(unexpected.isEmpty(), is(true));
+	}
+}
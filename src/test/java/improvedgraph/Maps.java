@@ -0,0 +1,43 @@
+package improvedgraph;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+final class Maps {
+
+	private Maps() {
+	}
+
+	static Graph load(String resource) {
+		Map<GraphNode, GraphNode> nodes = new HashMap<>();
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(Maps.class.getResourceAsStream(resource)))) {
+			String nextLine;
+
+			while ((nextLine = reader.readLine()) != null) {
+				String[] fields = nextLine.split(",");
+
+				GraphNode originNode = nodes.computeIfAbsent(new GraphNode(Double.parseDouble(fields[0]), Double.parseDouble(fields[1])), node -> node);
+				GraphNode destinationNode = nodes.computeIfAbsent(new GraphNode(Double.parseDouble(fields[2]), Double.parseDouble(fields[3])), node -> node);
+
+				if (originNode.hasEdgeTo(destinationNode))
+					continue;
+
+				GraphEdge edge = originNode.addEdgeTo(destinationNode);
+				edge.type(fields[4].equals("Ave") ? EdgeType.AVE : fields[4].equals("Lane") ? EdgeType.LANE : EdgeType.STREET);
+				edge.label(fields[5]);
+				edge.weight(fields.length > 6 ? Double.parseDouble(fields[6].trim()) : 1.0);
+			}
+
+		} catch (IOException e) {
+			throw new UncheckedIOException("Problem loading graph file: " + resource, e);
+		}
+
+		return new Graph(new HashSet<>(nodes.keySet()));
+	}
+}
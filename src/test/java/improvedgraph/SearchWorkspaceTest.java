@@ -0,0 +1,124 @@
+package improvedgraph;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchWorkspaceTest {
+
+	private CompactGraph kitsilano;
+	private SearchWorkspace workspace;
+
+	@Before
+	public void setUp() throws Exception {
+		kitsilano = Maps.load("/maps/kitsilanotest.map").freeze();
+		workspace = new SearchWorkspace(kitsilano.nodeCount());
+	}
+
+	private int[] aJourneyOfSeveralHops() {
+
+		for (int origin = 0; origin < kitsilano.nodeCount(); origin++) {
+			for (int destination = 0; destination < kitsilano.nodeCount(); destination++) {
+				if (kitsilano.navigate(origin, destination).size() >= 3)
+					return new int[] { origin, destination };
+			}
+		}
+
+		throw new IllegalStateException("The test map has no journey of several hops.");
+	}
+
+	@Test
+	public void aReusedWorkspaceFindsTheSamePathsAsAFreshOne() {
+
+		for (int origin = 0; origin < kitsilano.nodeCount(); origin += 3) {
+			for (int destination = 0; destination < kitsilano.nodeCount(); destination += 4) {
+				SearchWorkspace freshWorkspace = new SearchWorkspace(kitsilano.nodeCount());
+
+				assertThat(kitsilano.findPath(origin, destination, workspace), is(kitsilano.findPath(origin, destination, freshWorkspace)));
+				assertThat(workspace.pathLength(), is(freshWorkspace.pathLength()));
+
+				assertThat(kitsilano.findCheapestPath(origin, destination, 0.0, workspace), is(kitsilano.findCheapestPath(origin, destination, 0.0, freshWorkspace)));
+				assertThat(workspace.pathCost(), is(freshWorkspace.pathCost()));
+
+				assertThat(kitsilano.findPathBidirectionally(origin, destination, workspace), is(kitsilano.findPathBidirectionally(origin, destination, freshWorkspace)));
+				assertThat(workspace.pathLength(), is(freshWorkspace.pathLength()));
+			}
+		}
+	}
+
+	@Test
+	public void theRecordedPathLeadsFromTheOriginToTheDestination() {
+		int[] journey = aJourneyOfSeveralHops();
+		int origin = journey[0];
+		int destination = journey[1];
+
+		assertThat(kitsilano.findCheapestPath(origin, destination, 0.0, workspace), is(true));
+		assertThat(workspace.pathNode(0), is(origin));
+		assertThat(workspace.pathNode(workspace.pathLength()), is(destination));
+
+		for (int i = 0; i < workspace.pathLength(); i++) {
+			assertThat(kitsilano.edgeTarget(workspace.pathEdge(i)), is(workspace.pathNode(i + 1)));
+		}
+	}
+
+	@Test
+	public void stampsAreResetWhenTheEpochWrapsAround() {
+		int[] journey = aJourneyOfSeveralHops();
+		int origin = journey[0];
+		int destination = journey[1];
+
+		kitsilano.findPath(origin, destination, workspace);
+		int pathLength = workspace.pathLength();
+
+		workspace.epoch = Integer.MAX_VALUE - 2;
+
+		for (int i = 0; i < 4; i++) {
+			assertThat(kitsilano.findPath(origin, destination, workspace), is(true));
+			assertThat(workspace.pathLength(), is(pathLength));
+		}
+	}
+
+	@Test
+	public void steadyStateSearchesDoNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		int nodeCount = kitsilano.nodeCount();
+
+		for (int i = 0; i < 20_000; i++) {
+			kitsilano.findPath(i % nodeCount, (i * 7) % nodeCount, workspace);
+			kitsilano.findCheapestPath(i % nodeCount, (i * 7) % nodeCount, 0.5, workspace);
+		}
+
+		long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+		for (int i = 0; i < 1_000; i++) {
+			kitsilano.findPath(i % nodeCount, (i * 7) % nodeCount, workspace);
+			kitsilano.findCheapestPath(i % nodeCount, (i * 7) % nodeCount, 0.5, workspace);
+		}
+
+		long allocatedAfter = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+
+		assertThat(allocatedAfter - allocatedBefore, lessThan(16_000L));
+	}
+
+	@Test
+	public void workspacesTooSmallForTheGraphAreRefused() {
+
+		try {
+			kitsilano.findPath(0, 1, new SearchWorkspace(2));
+
+			fail("Trying to search with a workspace smaller than the graph should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is("You are trying to search a graph with " + kitsilano.nodeCount()
+					+ " nodes using a workspace for only 2 nodes. Please, check it out."));
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package improvedgraph.util;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CoordinateIndexTest {
+
+	private CoordinateIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		index = new CoordinateIndex();
+	}
+
+	@Test
+	public void storedIdsAreFoundByTheirCoordinates() {
+		assertThat(index.putIfAbsent(20.0, 15.0, 0), is(-1));
+		assertThat(index.putIfAbsent(16.0, 15.0, 1), is(-1));
+
+		assertThat(index.get(20.0, 15.0), is(0));
+		assertThat(index.get(16.0, 15.0), is(1));
+		assertThat(index.size(), is(2));
+	}
+
+	@Test
+	public void unknownCoordinatesHaveNoId() {
+		index.putIfAbsent(20.0, 15.0, 0);
+
+		assertThat(index.get(15.0, 20.0), is(-1));
+		assertThat(index.contains(15.0, 20.0), is(false));
+	}
+
+	@Test
+	public void theFirstIdStoredForSomeCoordinatesIsKept() {
+		index.putIfAbsent(20.0, 15.0, 0);
+
+		assertThat(index.putIfAbsent(20.0, 15.0, 7), is(0));
+		assertThat(index.get(20.0, 15.0), is(0));
+		assertThat(index.size(), is(1));
+	}
+
+	@Test
+	public void coordinatesAreComparedLikeGraphNodesDo() {
+		index.putIfAbsent(0.0, 0.0, 0);
+		index.putIfAbsent(Double.NaN, 1.0, 1);
+
+		assertThat(index.get(-0.0, 0.0), is(-1));
+		assertThat(index.get(Double.NaN, 1.0), is(1));
+	}
+
+	@Test
+	public void theIndexGrowsAndStillAgreesWithAHashMap() {
+		Map<String, Integer> expected = new HashMap<>();
+		Random random = new Random(7);
+
+		for (int id = 0; id < 50_000; id++) {
+			double x = random.nextInt(1000) / 4.0;
+			double y = random.nextInt(1000) / 4.0;
+
+			if (expected.putIfAbsent(x + "," + y, id) == null)
+				assertThat(index.putIfAbsent(x, y, id), is(-1));
+		}
+
+		assertThat(index.size(), is(expected.size()));
+		expected.forEach((key, id) -> {
+			String[] coordinates = key.split(",");
+			assertThat(index.get(Double.parseDouble(coordinates[0]), Double.parseDouble(coordinates[1])), is(id));
+		});
+	}
+
+	@Test
+	public void copiesAreIndependentOfTheOriginal() {
+		index.putIfAbsent(1.0, 1.0, 0);
+		CoordinateIndex copy = new CoordinateIndex(index);
+
+		index.putIfAbsent(2.0, 2.0, 1);
+
+		assertThat(copy.get(1.0, 1.0), is(0));
+		assertThat(copy.get(2.0, 2.0), is(-1));
+	}
+
+	@Test
+	public void negativeIdsAreRefused() {
+
+		try {
+			index.putIfAbsent(1.0, 1.0, -3);
+
+			fail("Trying to index coordinates under a negative id should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(index.size(), is(0));
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package improvedgraph.util;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HistogramTest {
+
+	private Histogram histogram;
+
+	@Before
+	public void setUp() throws Exception {
+		histogram = new Histogram();
+	}
+
+	@Test
+	public void smallValuesAreCountedExactly() {
+
+		for (long value = 1; value <= 10; value++) {
+			histogram.record(value);
+		}
+
+		Histogram.Snapshot snapshot = histogram.snapshot();
+
+		assertThat(snapshot.count(), is(10L));
+		assertThat(snapshot.mean(), is(5.5));
+		assertThat(snapshot.max(), is(10L));
+		assertThat(snapshot.percentile(50.0), is(5L));
+		assertThat(snapshot.percentile(90.0), is(9L));
+		assertThat(snapshot.percentile(0.0), is(1L));
+	}
+
+	@Test
+	public void largeValuesAreKnownToWithinTheirBucket() {
+
+		for (long value = 1; value <= 1_000_000; value++) {
+			histogram.record(value * 1000);
+		}
+
+		Histogram.Snapshot snapshot = histogram.snapshot();
+		long median = snapshot.percentile(50.0);
+		long tail = snapshot.percentile(99.9);
+
+		assertThat(median >= 500_000_000L && median <= 500_000_000L * 103 / 100, is(true));
+		assertThat(tail >= 999_000_000L && tail <= 1_000_000_000L, is(true));
+		assertThat(snapshot.max(), is(1_000_000_000L));
+	}
+
+	@Test
+	public void everyValueFallsInTheBucketThatHoldsIt() {
+
+		for (long value : new long[] { 0L, 31L, 32L, 33L, 63L, 64L, 1L << 40, Long.MAX_VALUE }) {
+			int bucket = Histogram.bucketOf(value);
+
+			assertThat(Histogram.highestValueIn(bucket) >= value, is(true));
+			assertThat(bucket == 0 || Histogram.highestValueIn(bucket - 1) < value, is(true));
+		}
+	}
+
+	@Test
+	public void negativeValuesAreCountedAsZero() {
+		histogram.record(-5L);
+
+		assertThat(histogram.snapshot().percentile(100.0), is(0L));
+	}
+
+	@Test
+	public void anEmptyHistogramReportsZeros() {
+		Histogram.Snapshot snapshot = histogram.snapshot();
+
+		assertThat(snapshot.count(), is(0L));
+		assertThat(snapshot.mean(), is(0.0));
+		assertThat(snapshot.percentile(99.0), is(0L));
+	}
+
+	@Test
+	public void percentilesOutsideZeroToAHundredAreRejected() {
+
+		try {
+			histogram.snapshot().percentile(101.0);
+
+			fail("Trying to get a percentile above 100 should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+}
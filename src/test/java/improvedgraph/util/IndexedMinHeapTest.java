@@ -0,0 +1,125 @@
+package improvedgraph.util;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexedMinHeapTest {
+
+	private IndexedMinHeap heap;
+
+	@Before
+	public void setUp() throws Exception {
+		heap = new IndexedMinHeap(10);
+	}
+
+	@Test
+	public void idsAreRemovedInAscendingOrderOfTheirKeys() {
+		heap.insert(3, 3.0);
+		heap.insert(1, 1.0);
+		heap.insert(7, 7.0);
+		heap.insert(5, 0.5);
+
+		assertThat(heap.removeMin(), is(5));
+		assertThat(heap.removeMin(), is(1));
+		assertThat(heap.removeMin(), is(3));
+		assertThat(heap.removeMin(), is(7));
+		assertThat(heap.isEmpty(), is(true));
+	}
+
+	@Test
+	public void decreasingAKeyMovesTheIdTowardsTheTop() {
+		heap.insert(3, 3.0);
+		heap.insert(1, 1.0);
+		heap.insert(7, 7.0);
+
+		heap.decreaseKey(7, 0.0);
+
+		assertThat(heap.keyOf(7), is(0.0));
+		assertThat(heap.peekMin(), is(7));
+		assertThat(heap.size(), is(3));
+	}
+
+	@Test
+	public void membershipFollowsInsertionsAndRemovals() {
+		heap.insertOrDecrease(4, 4.0);
+
+		assertThat(heap.contains(4), is(true));
+
+		heap.removeMin();
+
+		assertThat(heap.contains(4), is(false));
+	}
+
+	@Test
+	public void clearingTheHeapForgetsEveryId() {
+		heap.insert(2, 2.0);
+		heap.insert(9, 9.0);
+
+		heap.clear();
+
+		assertThat(heap.isEmpty(), is(true));
+		assertThat(heap.contains(2), is(false));
+		assertThat(heap.contains(9), is(false));
+	}
+
+	@Test
+	public void randomKeysAreSortedByTheHeap() {
+		IndexedMinHeap bigHeap = new IndexedMinHeap(1000);
+		Random random = new Random(42);
+
+		for (int id = 0; id < 1000; id++) {
+			bigHeap.insert(id, random.nextDouble());
+		}
+
+		for (int id = 0; id < 1000; id += 3) {
+			bigHeap.decreaseKey(id, bigHeap.keyOf(id) / 2);
+		}
+
+		double previousKey = Double.NEGATIVE_INFINITY;
+
+		while (!bigHeap.isEmpty()) {
+			double key = bigHeap.keyOf(bigHeap.peekMin());
+
+			assertThat(key >= previousKey, is(true));
+			previousKey = key;
+			bigHeap.removeMin();
+		}
+	}
+
+	@Test
+	public void anExceptionIsThrownWhenAnIdIsInsertedTwice() {
+		heap.insert(1, 1.0);
+
+		try {
+			heap.insert(1, 2.0);
+
+			fail("Trying to insert an id that is already in the heap should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+			assertThat(e.getMessage(), is("You are trying to insert the id 1 that is already in the heap. Please, check it out."));
+			assertThat(heap.keyOf(1), is(1.0));
+		}
+	}
+
+	@Test
+	public void anExceptionIsThrownWhenRemovingFromAnEmptyHeap() {
+
+		try {
+			heap.removeMin();
+
+			fail("Trying to remove from an empty heap should throw a NoSuchElementException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(NoSuchElementException.class));
+		}
+	}
+}
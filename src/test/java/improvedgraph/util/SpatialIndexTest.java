@@ -0,0 +1,151 @@
+package improvedgraph.util;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpatialIndexTest {
+
+	private static final int POINT_COUNT = 5_000;
+
+	private double[] xCoordinates;
+	private double[] yCoordinates;
+	private SpatialIndex index;
+	private Random random;
+
+	@Before
+	public void setUp() throws Exception {
+		random = new Random(11);
+		xCoordinates = new double[POINT_COUNT];
+		yCoordinates = new double[POINT_COUNT];
+
+		for (int id = 0; id < POINT_COUNT; id++) {
+			// Clustered points leave most of the grid empty, like a road network does.
+			xCoordinates[id] = (id % 5) * 100.0 + random.nextGaussian();
+			yCoordinates[id] = (id % 3) * 100.0 + random.nextGaussian();
+		}
+
+		index = new SpatialIndex(SpatialIndex.cellSizeFor(0.0, 0.0, 400.0, 200.0, POINT_COUNT));
+
+		for (int id = 0; id < POINT_COUNT; id++) {
+			index.add(id, xCoordinates[id], yCoordinates[id]);
+		}
+	}
+
+	private double squaredDistance(int id, double x, double y) {
+		return (xCoordinates[id] - x) * (xCoordinates[id] - x) + (yCoordinates[id] - y) * (yCoordinates[id] - y);
+	}
+
+	private double[] scanForTheNearestDistances(double x, double y, int howMany) {
+		return IntStream.range(0, POINT_COUNT)
+				.mapToDouble(id -> squaredDistance(id, x, y))
+				.sorted()
+				.limit(howMany)
+				.toArray();
+	}
+
+	@Test
+	public void theNearestPointIsAsCloseAsTheOneFoundByAScan() {
+
+		for (int query = 0; query < 500; query++) {
+			double x = random.nextDouble() * 600.0 - 100.0;
+			double y = random.nextDouble() * 400.0 - 100.0;
+
+			assertThat(squaredDistance(index.nearest(x, y), x, y), is(scanForTheNearestDistances(x, y, 1)[0]));
+		}
+	}
+
+	@Test
+	public void theNearestPointsAreSortedAndAsCloseAsTheOnesFoundByAScan() {
+
+		for (int query = 0; query < 200; query++) {
+			double x = random.nextDouble() * 600.0 - 100.0;
+			double y = random.nextDouble() * 400.0 - 100.0;
+			int[] nearest = index.nearest(x, y, 10);
+
+			assertThat(Arrays.stream(nearest).mapToDouble(id -> squaredDistance(id, x, y)).toArray(), is(scanForTheNearestDistances(x, y, 10)));
+		}
+	}
+
+	@Test
+	public void queriesFarAwayFromEveryPointStillFindTheNearestOne() {
+		int nearest = index.nearest(1e7, -1e7);
+
+		assertThat(squaredDistance(nearest, 1e7, -1e7), is(scanForTheNearestDistances(1e7, -1e7, 1)[0]));
+	}
+
+	@Test
+	public void askingForMorePointsThanIndexedReturnsThemAll() {
+		SpatialIndex smallIndex = new SpatialIndex(1.0);
+		smallIndex.add(0, 0.0, 0.0);
+		smallIndex.add(1, 3.0, 0.0);
+
+		assertThat(smallIndex.nearest(2.0, 0.0, 5), is(new int[] { 1, 0 }));
+	}
+
+	@Test
+	public void theBoxQueryReturnsExactlyThePointsInsideTheBox() {
+
+		for (int query = 0; query < 100; query++) {
+			double minX = random.nextDouble() * 500.0 - 50.0;
+			double minY = random.nextDouble() * 300.0 - 50.0;
+			double maxX = minX + random.nextDouble() * (query % 2 == 0 ? 5.0 : 300.0);
+			double maxY = minY + random.nextDouble() * (query % 2 == 0 ? 5.0 : 300.0);
+
+			int[] expected = IntStream.range(0, POINT_COUNT)
+					.filter(id -> xCoordinates[id] >= minX && xCoordinates[id] <= maxX && yCoordinates[id] >= minY && yCoordinates[id] <= maxY)
+					.toArray();
+			int[] actual = index.within(minX, minY, maxX, maxY);
+
+			Arrays.sort(actual);
+			assertThat(actual, is(expected));
+		}
+	}
+
+	@Test
+	public void anEmptyIndexHasNoNearestPoint() {
+		SpatialIndex emptyIndex = new SpatialIndex(1.0);
+
+		assertThat(emptyIndex.nearest(0.0, 0.0), is(-1));
+		assertThat(emptyIndex.nearest(0.0, 0.0, 3).length, is(0));
+		assertThat(emptyIndex.within(-1.0, -1.0, 1.0, 1.0).length, is(0));
+	}
+
+	@Test
+	public void pointsAddedLaterAreFound() {
+		index.add(POINT_COUNT, 1000.0, 1000.0);
+
+		assertThat(index.nearest(999.0, 999.0), is(POINT_COUNT));
+		assertThat(index.size(), is(POINT_COUNT + 1));
+	}
+
+	@Test
+	public void invertedBoxesAreRefused() {
+
+		try {
+			index.within(1.0, 0.0, 0.0, 1.0);
+
+			fail("Trying to search a box whose minimum corner exceeds its maximum corner should throw an IllegalArgumentException.");
+
+		} catch (Exception e) {
+			assertThat(e, instanceOf(IllegalArgumentException.class));
+		}
+	}
+
+	@Test
+	public void cellsAreSizedForTheDensityOfThePoints() {
+		assertThat(SpatialIndex.cellSizeFor(0.0, 0.0, 100.0, 100.0, 10_000), is(1.0));
+		assertThat(SpatialIndex.cellSizeFor(0.0, 0.0, 100.0, 0.0, 100), is(1.0));
+		assertThat(SpatialIndex.cellSizeFor(5.0, 5.0, 5.0, 5.0, 100), is(1.0));
+		assertThat(Comparator.<Double>naturalOrder().compare(SpatialIndex.cellSizeFor(0.0, 0.0, 1.0, 1.0, 100), 1.0) < 0, is(true));
+	}
+}